@@ -0,0 +1,264 @@
+package com.pattern.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.ExecutableType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/* @GenerateBuilder 애노테이션 프로세서
+ * 손으로 짠 빌더(점층적 생성자 / 자바 빈 / 플루언트 빌더)는 필드가 빠져도 조용히 null 이 들어가고
+ * 리플렉션 기반 빌더는 시작 시간과 JIT 워밍업 비용이 있음
+ * 컴파일 시점에 평범한 자바 코드를 만들어 두면 두 문제가 같이 사라짐
+ *  1. 인터페이스의 인자 없는 추상 메소드 하나가 필드 하나 (메소드 이름 = 필드 / 세터 이름)
+ *      1-1 상위 인터페이스에서 물려받은 추상 메소드도 포함 (제네릭 상위 인터페이스는 실제 타입 인자로 바꿔서 사용)
+ *  2. 제품 클래스는 final 필드, 생성자에서 hashCode 를 미리 계산
+ *      2-1 배열 필드는 생성자와 접근자에서 clone -> 빌더에 넘긴 배열이나 접근자가 돌려준 배열을 고쳐도 제품은 바뀌지 않음
+ *  3. Builder.build() 는 @Required 필드가 비어 있으면 빠진 필드 이름을 모두 모아서 IllegalStateException
+ *  4. 생성 코드는 필드를 항상 this.이름 으로 읽고, 지역 변수 / 인자 / 내부 필드는 $ 로 시작하는 이름을 씀 -> 어떤 속성 이름과도 겹치지 않음
+ */
+@SupportedAnnotationTypes({"com.pattern.processor.GenerateBuilder", "com.pattern.processor.Required"})
+public class BuilderProcessor extends AbstractProcessor {
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for(Element element : roundEnv.getElementsAnnotatedWith(GenerateBuilder.class)) {
+            if(element.getKind() != ElementKind.INTERFACE) {
+                error(element, "@GenerateBuilder 는 인터페이스에만 붙일 수 있음");
+                continue;
+            }
+
+            TypeElement spec = (TypeElement) element;
+            List<Property> properties = properties(spec);
+            if(properties == null)
+                continue;
+
+            try {
+                generate(spec, properties);
+            } catch (IOException e) {
+                error(spec, "빌더 생성 실패 -> " + e.getMessage());
+            }
+        }
+        return true;
+    }
+
+    private List<Property> properties(TypeElement spec) {
+        Elements elements = processingEnv.getElementUtils();
+        Types types = processingEnv.getTypeUtils();
+        DeclaredType specType = (DeclaredType) spec.asType();
+
+        // 같은 메소드를 여러 상위 인터페이스에서 물려받으면 필드는 하나
+        Map<String, Property> properties = new LinkedHashMap<>();
+        for(Element member : elements.getAllMembers(spec)) {
+            if(member.getKind() != ElementKind.METHOD || !member.getModifiers().contains(Modifier.ABSTRACT))
+                continue;
+
+            ExecutableElement method = (ExecutableElement) member;
+            ExecutableType methodType = (ExecutableType) types.asMemberOf(specType, method);
+            if(!method.getParameters().isEmpty() || methodType.getReturnType().getKind() == TypeKind.VOID) {
+                error(method, "인자가 없고 값을 반환하는 메소드만 필드로 만들 수 있음");
+                return null;
+            }
+
+            String name = method.getSimpleName().toString();
+            Property previous = properties.get(name);
+            boolean required = (previous != null && previous.required) || required(spec, name);
+            properties.put(name, new Property(name, methodType.getReturnType(), required));
+        }
+        return new ArrayList<>(properties.values());
+    }
+
+    private void generate(TypeElement spec, List<Property> properties) throws IOException {
+        PackageElement pkg = processingEnv.getElementUtils().getPackageOf(spec);
+        String packageName = pkg.isUnnamed() ? "" : pkg.getQualifiedName().toString();
+        String specName = spec.getSimpleName().toString();
+        String name = spec.getAnnotation(GenerateBuilder.class).name();
+        if(name.isEmpty())
+            name = "Immutable" + specName;
+
+        StringBuilder src = new StringBuilder();
+        if(!packageName.isEmpty())
+            src.append("package ").append(packageName).append(";\n\n");
+
+        src.append("// @GenerateBuilder 로 생성된 코드 (").append(specName).append(") - 직접 수정하지 말 것\n");
+        src.append("final class ").append(name).append(" implements ").append(specName).append(" {\n");
+
+        for(Property p : properties)
+            src.append("    private final ").append(p.type).append(' ').append(p.name).append(";\n");
+        src.append("    private final int $hashCode;\n\n");
+
+        // 생성자 : 빌더에서만 호출, hashCode 미리 계산
+        src.append("    private ").append(name).append("(Builder $builder) {\n");
+        for(Property p : properties)
+            src.append("        this.").append(p.name).append(" = ").append(copyExpression(p, "$builder." + p.name)).append(";\n");
+        src.append("        int $h = 1;\n");
+        for(Property p : properties)
+            src.append("        $h = 31 * $h + ").append(hashExpression(p, "this." + p.name)).append(";\n");
+        src.append("        this.$hashCode = $h;\n");
+        src.append("    }\n\n");
+
+        src.append("    static Builder builder() {\n        return new Builder();\n    }\n\n");
+
+        for(Property p : properties) {
+            src.append("    @Override\n");
+            src.append("    public ").append(p.type).append(' ').append(p.name).append("() {\n");
+            src.append("        return ").append(copyExpression(p, "this." + p.name)).append(";\n    }\n\n");
+        }
+
+        // equals : 미리 계산된 hashCode 로 먼저 거름
+        src.append("    @Override\n    public boolean equals(Object $o) {\n");
+        src.append("        if(this == $o)\n            return true;\n");
+        src.append("        if(!($o instanceof ").append(name).append("))\n            return false;\n");
+        src.append("        ").append(name).append(" $other = (").append(name).append(") $o;\n");
+        src.append("        if(this.$hashCode != $other.$hashCode)\n            return false;\n");
+        src.append("        return true");
+        for(Property p : properties)
+            src.append("\n                && ").append(equalsExpression(p));
+        src.append(";\n    }\n\n");
+
+        src.append("    @Override\n    public int hashCode() {\n        return this.$hashCode;\n    }\n\n");
+
+        src.append("    @Override\n    public String toString() {\n");
+        src.append("        return \"").append(name).append("{\"");
+        for(int i = 0; i < properties.size(); i++) {
+            Property p = properties.get(i);
+            src.append("\n                + \"").append(i == 0 ? "" : ", ").append(p.name).append("=\" + this.").append(p.name);
+        }
+        src.append("\n                + '}';\n    }\n\n");
+
+        // Builder
+        src.append("    static final class Builder {\n");
+        for(Property p : properties) {
+            src.append("        private ").append(p.type).append(' ').append(p.name).append(";\n");
+            if(p.required && p.isPrimitive())
+                src.append("        private boolean $").append(p.name).append("Set;\n");
+        }
+        src.append("\n        private Builder() {}\n\n");
+
+        for(Property p : properties) {
+            src.append("        Builder ").append(p.name).append('(').append(p.type).append(" $value) {\n");
+            src.append("            this.").append(p.name).append(" = $value;\n");
+            if(p.required && p.isPrimitive())
+                src.append("            this.$").append(p.name).append("Set = true;\n");
+            src.append("            return this;\n        }\n\n");
+        }
+
+        src.append("        ").append(name).append(" build() {\n");
+        if(properties.stream().anyMatch(p -> p.required)) {
+            src.append("            StringBuilder $missing = null;\n");
+            for(Property p : properties) {
+                if(!p.required)
+                    continue;
+                String condition = p.isPrimitive() ? "!this.$" + p.name + "Set" : "this." + p.name + " == null";
+                src.append("            if(").append(condition).append(")\n");
+                src.append("                $missing = ($missing == null ? new StringBuilder() : $missing.append(\", \")).append(\"")
+                        .append(p.name).append("\");\n");
+            }
+            src.append("            if($missing != null)\n");
+            src.append("                throw new IllegalStateException(\"").append(name).append(" 필수 필드 누락 -> \" + $missing);\n");
+        }
+        src.append("            return new ").append(name).append("(this);\n        }\n    }\n}\n");
+
+        String qualifiedName = packageName.isEmpty() ? name : packageName + "." + name;
+        try(Writer writer = processingEnv.getFiler().createSourceFile(qualifiedName, spec).openWriter()) {
+            writer.write(src.toString());
+        }
+    }
+
+    // 재정의하면서 @Required 를 빼먹어도 상위 인터페이스의 선언에 있으면 필수
+    private boolean required(TypeElement type, String name) {
+        for(Element member : type.getEnclosedElements()) {
+            if(member.getKind() == ElementKind.METHOD
+                    && member.getSimpleName().contentEquals(name)
+                    && ((ExecutableElement) member).getParameters().isEmpty()
+                    && member.getAnnotation(Required.class) != null)
+                return true;
+        }
+        for(TypeMirror parent : type.getInterfaces()) {
+            if(required((TypeElement) processingEnv.getTypeUtils().asElement(parent), name))
+                return true;
+        }
+        return false;
+    }
+
+    // 배열은 밖에서 고칠 수 없도록 복사
+    private static String copyExpression(Property p, String value) {
+        if(p.type.getKind() != TypeKind.ARRAY)
+            return value;
+        return value + " == null ? null : " + value + ".clone()";
+    }
+
+    private static String hashExpression(Property p, String value) {
+        switch(p.type.getKind()) {
+            case BOOLEAN: return "Boolean.hashCode(" + value + ")";
+            case BYTE: return "Byte.hashCode(" + value + ")";
+            case SHORT: return "Short.hashCode(" + value + ")";
+            case CHAR: return "Character.hashCode(" + value + ")";
+            case INT: return "Integer.hashCode(" + value + ")";
+            case LONG: return "Long.hashCode(" + value + ")";
+            case FLOAT: return "Float.hashCode(" + value + ")";
+            case DOUBLE: return "Double.hashCode(" + value + ")";
+            case ARRAY: return "java.util.Arrays.hashCode(" + value + ")";
+            default: return "java.util.Objects.hashCode(" + value + ")";
+        }
+    }
+
+    // this 와 $other 의 같은 필드 비교
+    private static String equalsExpression(Property p) {
+        String mine = "this." + p.name;
+        String theirs = "$other." + p.name;
+        switch(p.type.getKind()) {
+            case FLOAT: return "Float.compare(" + mine + ", " + theirs + ") == 0";
+            case DOUBLE: return "Double.compare(" + mine + ", " + theirs + ") == 0";
+            case ARRAY: return "java.util.Arrays.equals(" + mine + ", " + theirs + ")";
+            default:
+                return p.isPrimitive()
+                        ? mine + " == " + theirs
+                        : "java.util.Objects.equals(" + mine + ", " + theirs + ")";
+        }
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+
+    private static final class Property {
+        final String name;
+        final TypeMirror type;
+        final boolean required;
+
+        Property(String name, TypeMirror type, boolean required) {
+            this.name = name;
+            this.type = type;
+            this.required = required;
+        }
+
+        boolean isPrimitive() {
+            return type.getKind().isPrimitive();
+        }
+    }
+}
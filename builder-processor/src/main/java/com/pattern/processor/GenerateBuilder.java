@@ -0,0 +1,26 @@
+package com.pattern.processor;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/* 컴파일 타임 빌더 생성
+ * 인터페이스에 붙이면 BuilderProcessor 가 컴파일 시점에
+ *  1. 인터페이스를 구현하는 불변 제품 클래스 (final 필드 + 생성 시점에 미리 계산한 hashCode)
+ *  2. 제품의 정적 내부 Builder (플루언트 세터 + build() 에서 @Required 필드 검사)
+ * 를 만들어 줌. SOURCE 보존이라 런타임에는 애노테이션도 리플렉션도 남지 않음
+ *
+ * @GenerateBuilder(name = "ImmutableDrink")
+ * interface DrinkSpec {
+ *     @Required String soju();
+ *     String beer();
+ * }
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.TYPE)
+public @interface GenerateBuilder {
+
+    // 생성될 클래스 이름 (비어 있으면 "Immutable" + 인터페이스 이름)
+    String name() default "";
+}
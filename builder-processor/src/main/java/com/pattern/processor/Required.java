@@ -0,0 +1,12 @@
+package com.pattern.processor;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// 필수 필드 -> 생성된 Builder.build() 에서 값이 없으면(null, 기본형은 세터 미호출) IllegalStateException
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.METHOD)
+public @interface Required {
+}
@@ -0,0 +1,142 @@
+package com.pattern.processor;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/* BuilderProcessor 로 스펙 인터페이스를 실제로 컴파일해서 생성된 코드의 동작을 확인
+ * 생성 코드 안의 지역 변수 / 인자 이름(h, o, other, missing, builder)과 같은 속성 이름도 섞어서 가려짐(shadowing)이 없는지 봄
+ */
+class BuilderProcessorTest {
+
+    private static final String SPEC = String.join("\n",
+            "package spec;",
+            "",
+            "import com.pattern.processor.GenerateBuilder;",
+            "import com.pattern.processor.Required;",
+            "",
+            "@GenerateBuilder",
+            "interface Colliding {",
+            "    String other();",
+            "    int h();",
+            "    @Required String missing();",
+            "    @Required long o();",
+            "    double[] value();",
+            "}",
+            "");
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void collidingPropertyNames() throws Exception {
+        Class<?> product = compile("ImmutableColliding");
+
+        Object first = build(product, "a", 7, "m", 3L, new double[] {1.5});
+        Object second = build(product, "a", 7, "m", 3L, new double[] {1.5});
+        Object different = build(product, "a", 8, "m", 3L, new double[] {1.5});
+
+        assertEquals(first, second);
+        assertEquals(first.hashCode(), second.hashCode());
+        assertNotEquals(first, different);
+        assertNotEquals(first.hashCode(), different.hashCode());
+        assertEquals("a", read(first, "other"));
+        assertEquals(7, read(first, "h"));
+        assertEquals("m", read(first, "missing"));
+    }
+
+    @Test
+    void requiredFieldsAreReadFromTheBuilder() throws Exception {
+        Class<?> product = compile("ImmutableColliding");
+        Object builder = builder(product);
+        set(builder, "other", String.class, "a");
+
+        InvocationTargetException e = assertThrows(InvocationTargetException.class, () -> method(builder.getClass(), "build").invoke(builder));
+        assertTrue(e.getCause() instanceof IllegalStateException);
+        assertTrue(e.getCause().getMessage().endsWith("-> missing, o"), e.getCause().getMessage());
+    }
+
+    @Test
+    void arraysAreCopied() throws Exception {
+        Class<?> product = compile("ImmutableColliding");
+        double[] values = {1.5};
+        Object built = build(product, "a", 7, "m", 3L, values);
+
+        values[0] = 2.5;
+        ((double[]) read(built, "value"))[0] = 3.5;
+        assertEquals(1.5, ((double[]) read(built, "value"))[0]);
+    }
+
+    private Class<?> compile(String productName) throws Exception {
+        Path source = dir.resolve("src/spec/Colliding.java");
+        Path classes = dir.resolve("classes");
+        Files.createDirectories(source.getParent());
+        Files.createDirectories(classes);
+        Files.writeString(source, SPEC);
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        try(StandardJavaFileManager files = compiler.getStandardFileManager(diagnostics, null, null)) {
+            JavaCompiler.CompilationTask task = compiler.getTask(null, files, diagnostics,
+                    List.of("-d", classes.toString(), "-s", classes.toString(), "-classpath", System.getProperty("java.class.path"), "-Xlint:all", "-Werror"),
+                    null, files.getJavaFileObjects(source));
+            task.setProcessors(List.of(new BuilderProcessor()));
+
+            boolean success = task.call();
+            StringBuilder messages = new StringBuilder();
+            for(Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics())
+                messages.append(diagnostic).append('\n');
+            assertTrue(success, messages.toString());
+        }
+
+        URLClassLoader loader = new URLClassLoader(new URL[] {classes.toUri().toURL()}, getClass().getClassLoader());
+        return Class.forName("spec." + productName, true, loader);
+    }
+
+    private static Object build(Class<?> product, String other, int h, String missing, long o, double[] value) throws Exception {
+        Object builder = builder(product);
+        set(builder, "other", String.class, other);
+        set(builder, "h", int.class, h);
+        set(builder, "missing", String.class, missing);
+        set(builder, "o", long.class, o);
+        set(builder, "value", double[].class, value);
+        return method(builder.getClass(), "build").invoke(builder);
+    }
+
+    // 생성된 클래스는 package-private 이라 리플렉션으로 부를 때 접근 검사를 끔
+    private static Method method(Class<?> type, String name, Class<?>... parameterTypes) throws NoSuchMethodException {
+        Method method = type.getDeclaredMethod(name, parameterTypes);
+        method.setAccessible(true);
+        return method;
+    }
+
+    private static Object builder(Class<?> product) throws Exception {
+        return method(product, "builder").invoke(null);
+    }
+
+    private static void set(Object builder, String name, Class<?> type, Object value) throws Exception {
+        method(builder.getClass(), name, type).invoke(builder, value);
+    }
+
+    private static Object read(Object product, String name) throws Exception {
+        return method(product.getClass(), name).invoke(product);
+    }
+}
@@ -0,0 +1,88 @@
+package com.pattern.creational;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/* BatchDirector 코어 수별 처리량 벤치마크
+ * parallelism 을 바꿔가며 같은 RECORDS 건을 파일로 직렬화 -> 결과 단위는 초당 Wine 건수
+ * parallelism=1 결과와 비교하면 코어가 늘어날 때 얼마나 확장되는지 알 수 있음
+ * 실행 -> ./gradlew jmh -Pjmh.includes=BatchDirectorBenchmark
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BatchDirectorBenchmark {
+
+    static final int RECORDS = 1_000_000;
+
+    @Param({"1", "2", "4", "8", "16"})
+    int parallelism;
+
+    @Param({"plain", "json", "xml"})
+    String format;
+
+    List<Wine> wines;
+    ForkJoinPool pool;
+    BatchDirector batchDirector;
+    Path path;
+
+    @Setup
+    public void setUp() throws IOException {
+        wines = new ArrayList<>(RECORDS);
+        for(int i = 0; i < RECORDS; i++)
+            wines.add(new Wine("Wine <" + i + "> & \"Co\"", 1900 + i % 120));
+
+        pool = new ForkJoinPool(parallelism);
+        batchDirector = new BatchDirector(builder(format), pool, 4_096, parallelism * 2);
+        path = Files.createTempFile("batch-director", ".out");
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        pool.shutdown();
+        Files.deleteIfExists(path);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public long batch() throws IOException {
+        try(FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            return batchDirector.write(wines.iterator(), channel);
+        }
+    }
+
+    private static WineBuilder builder(String format) {
+        switch(format) {
+            case "json":
+                return new JSONBuilder();
+            case "xml":
+                return new XMLBuilder();
+            default:
+                return new PlainTextBuilder();
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.pattern.creational;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/* AlcoholicDrinkByBuilder 할당량 벤치마크
+ *  1. fluent : 매번 new 빌더 + new Drink (기존 방식)
+ *  2. pooled : 쓰레드 로컬 빌더 재사용 + new Drink
+ *  3. pooledInto : 쓰레드 로컬 빌더 재사용 + 호출자 소유 Drink 에 채움
+ * 할당률은 GC 프로파일러로 확인 (gc.alloc.rate.norm = 호출당 할당 바이트)
+ * 실행 -> ./gradlew jmh -Pjmh.includes=DrinkBuilderBenchmark -Pjmh.profilers=gc
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Thread)
+public class DrinkBuilderBenchmark {
+
+    String soju = "대선";
+    String whiskey = "그레인";
+    String beer = "에일";
+    String wine = "스파클링";
+    String sake = "간바레오또상";
+
+    Drink target = new Drink();
+
+    @Benchmark
+    public Drink fluent() {
+        return new AlcoholicDrinkByBuilder()
+                .soju(soju)
+                .whiskey(whiskey)
+                .beer(beer)
+                .wine(wine)
+                .sake(sake)
+                .build();
+    }
+
+    @Benchmark
+    public Drink pooled() {
+        return AlcoholicDrinkByBuilder.pooled()
+                .soju(soju)
+                .whiskey(whiskey)
+                .beer(beer)
+                .wine(wine)
+                .sake(sake)
+                .build();
+    }
+
+    @Benchmark
+    public Drink pooledInto() {
+        return AlcoholicDrinkByBuilder.pooled()
+                .soju(soju)
+                .whiskey(whiskey)
+                .beer(beer)
+                .wine(wine)
+                .sake(sake)
+                .buildInto(target);
+    }
+}
@@ -0,0 +1,351 @@
+package com.pattern.creational;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/* 팩토리 메서드 디스패치 벤치마크
+ * 한 호출 지점에서 productTypes 종류의 제품을 번갈아 생성
+ *  1. virtualDispatch : AbstractBeerFactory 서브클래스 배열 -> createBeer() 가상 호출 (3종류 이상이면 메가모픽)
+ *  2. registryDispatch : BeerFactoryRegistry 에서 미리 꺼내둔 BeerFactory 배열 -> supplier.get()
+ *  3. *Constant : 호출 지점마다 제품이 하나로 고정된 경우 (static final) -> 인라이닝 여부 비교
+ * 실행 -> ./gradlew jmh -Pjmh.includes=FactoryMethodBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FactoryMethodBenchmark {
+
+    static final int CALLS = 1024;
+
+    static final AbstractBeerFactory CONSTANT_FACTORY = new Factory0();
+    static final BeerFactory CONSTANT_REGISTRY_FACTORY = new BeerFactoryRegistry().register("beer0", Beer0.class).factory("beer0");
+
+    @Param({"2", "8", "64"})
+    int productTypes;
+
+    AbstractBeerFactory[] factories;
+    BeerFactory[] registryFactories;
+
+    @Setup
+    public void setUp() {
+        BeerFactoryRegistry registry = new BeerFactoryRegistry();
+        factories = new AbstractBeerFactory[productTypes];
+        registryFactories = new BeerFactory[productTypes];
+
+        for(int i = 0; i < productTypes; i++) {
+            registry.register("beer" + i, BEER_TYPES[i]);
+            registryFactories[i] = registry.factory("beer" + i);
+            factories[i] = FACTORY_TYPES[i].get();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CALLS)
+    public void virtualDispatch(Blackhole blackhole) {
+        AbstractBeerFactory[] factories = this.factories;
+        for(int i = 0; i < CALLS; i++)
+            blackhole.consume(factories[i % factories.length].createOperation());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CALLS)
+    public void registryDispatch(Blackhole blackhole) {
+        BeerFactory[] factories = this.registryFactories;
+        for(int i = 0; i < CALLS; i++)
+            blackhole.consume(factories[i % factories.length].createOperation());
+    }
+
+    @Benchmark
+    public Beer virtualConstant() {
+        return CONSTANT_FACTORY.createOperation();
+    }
+
+    @Benchmark
+    public Beer registryConstant() {
+        return CONSTANT_REGISTRY_FACTORY.createOperation();
+    }
+
+    // 메가모픽 상황을 만들기 위한 제품 / 공장 타입 64개
+    @SuppressWarnings("unchecked")
+    static final Class<? extends Beer>[] BEER_TYPES = new Class[] {
+            Beer0.class,
+            Beer1.class,
+            Beer2.class,
+            Beer3.class,
+            Beer4.class,
+            Beer5.class,
+            Beer6.class,
+            Beer7.class,
+            Beer8.class,
+            Beer9.class,
+            Beer10.class,
+            Beer11.class,
+            Beer12.class,
+            Beer13.class,
+            Beer14.class,
+            Beer15.class,
+            Beer16.class,
+            Beer17.class,
+            Beer18.class,
+            Beer19.class,
+            Beer20.class,
+            Beer21.class,
+            Beer22.class,
+            Beer23.class,
+            Beer24.class,
+            Beer25.class,
+            Beer26.class,
+            Beer27.class,
+            Beer28.class,
+            Beer29.class,
+            Beer30.class,
+            Beer31.class,
+            Beer32.class,
+            Beer33.class,
+            Beer34.class,
+            Beer35.class,
+            Beer36.class,
+            Beer37.class,
+            Beer38.class,
+            Beer39.class,
+            Beer40.class,
+            Beer41.class,
+            Beer42.class,
+            Beer43.class,
+            Beer44.class,
+            Beer45.class,
+            Beer46.class,
+            Beer47.class,
+            Beer48.class,
+            Beer49.class,
+            Beer50.class,
+            Beer51.class,
+            Beer52.class,
+            Beer53.class,
+            Beer54.class,
+            Beer55.class,
+            Beer56.class,
+            Beer57.class,
+            Beer58.class,
+            Beer59.class,
+            Beer60.class,
+            Beer61.class,
+            Beer62.class,
+            Beer63.class
+    };
+
+    @SuppressWarnings("unchecked")
+    static final Supplier<AbstractBeerFactory>[] FACTORY_TYPES = new Supplier[] {
+            Factory0::new,
+            Factory1::new,
+            Factory2::new,
+            Factory3::new,
+            Factory4::new,
+            Factory5::new,
+            Factory6::new,
+            Factory7::new,
+            Factory8::new,
+            Factory9::new,
+            Factory10::new,
+            Factory11::new,
+            Factory12::new,
+            Factory13::new,
+            Factory14::new,
+            Factory15::new,
+            Factory16::new,
+            Factory17::new,
+            Factory18::new,
+            Factory19::new,
+            Factory20::new,
+            Factory21::new,
+            Factory22::new,
+            Factory23::new,
+            Factory24::new,
+            Factory25::new,
+            Factory26::new,
+            Factory27::new,
+            Factory28::new,
+            Factory29::new,
+            Factory30::new,
+            Factory31::new,
+            Factory32::new,
+            Factory33::new,
+            Factory34::new,
+            Factory35::new,
+            Factory36::new,
+            Factory37::new,
+            Factory38::new,
+            Factory39::new,
+            Factory40::new,
+            Factory41::new,
+            Factory42::new,
+            Factory43::new,
+            Factory44::new,
+            Factory45::new,
+            Factory46::new,
+            Factory47::new,
+            Factory48::new,
+            Factory49::new,
+            Factory50::new,
+            Factory51::new,
+            Factory52::new,
+            Factory53::new,
+            Factory54::new,
+            Factory55::new,
+            Factory56::new,
+            Factory57::new,
+            Factory58::new,
+            Factory59::new,
+            Factory60::new,
+            Factory61::new,
+            Factory62::new,
+            Factory63::new
+    };
+
+    static final class Beer0 implements Beer { public void setting() {} }
+    static final class Beer1 implements Beer { public void setting() {} }
+    static final class Beer2 implements Beer { public void setting() {} }
+    static final class Beer3 implements Beer { public void setting() {} }
+    static final class Beer4 implements Beer { public void setting() {} }
+    static final class Beer5 implements Beer { public void setting() {} }
+    static final class Beer6 implements Beer { public void setting() {} }
+    static final class Beer7 implements Beer { public void setting() {} }
+    static final class Beer8 implements Beer { public void setting() {} }
+    static final class Beer9 implements Beer { public void setting() {} }
+    static final class Beer10 implements Beer { public void setting() {} }
+    static final class Beer11 implements Beer { public void setting() {} }
+    static final class Beer12 implements Beer { public void setting() {} }
+    static final class Beer13 implements Beer { public void setting() {} }
+    static final class Beer14 implements Beer { public void setting() {} }
+    static final class Beer15 implements Beer { public void setting() {} }
+    static final class Beer16 implements Beer { public void setting() {} }
+    static final class Beer17 implements Beer { public void setting() {} }
+    static final class Beer18 implements Beer { public void setting() {} }
+    static final class Beer19 implements Beer { public void setting() {} }
+    static final class Beer20 implements Beer { public void setting() {} }
+    static final class Beer21 implements Beer { public void setting() {} }
+    static final class Beer22 implements Beer { public void setting() {} }
+    static final class Beer23 implements Beer { public void setting() {} }
+    static final class Beer24 implements Beer { public void setting() {} }
+    static final class Beer25 implements Beer { public void setting() {} }
+    static final class Beer26 implements Beer { public void setting() {} }
+    static final class Beer27 implements Beer { public void setting() {} }
+    static final class Beer28 implements Beer { public void setting() {} }
+    static final class Beer29 implements Beer { public void setting() {} }
+    static final class Beer30 implements Beer { public void setting() {} }
+    static final class Beer31 implements Beer { public void setting() {} }
+    static final class Beer32 implements Beer { public void setting() {} }
+    static final class Beer33 implements Beer { public void setting() {} }
+    static final class Beer34 implements Beer { public void setting() {} }
+    static final class Beer35 implements Beer { public void setting() {} }
+    static final class Beer36 implements Beer { public void setting() {} }
+    static final class Beer37 implements Beer { public void setting() {} }
+    static final class Beer38 implements Beer { public void setting() {} }
+    static final class Beer39 implements Beer { public void setting() {} }
+    static final class Beer40 implements Beer { public void setting() {} }
+    static final class Beer41 implements Beer { public void setting() {} }
+    static final class Beer42 implements Beer { public void setting() {} }
+    static final class Beer43 implements Beer { public void setting() {} }
+    static final class Beer44 implements Beer { public void setting() {} }
+    static final class Beer45 implements Beer { public void setting() {} }
+    static final class Beer46 implements Beer { public void setting() {} }
+    static final class Beer47 implements Beer { public void setting() {} }
+    static final class Beer48 implements Beer { public void setting() {} }
+    static final class Beer49 implements Beer { public void setting() {} }
+    static final class Beer50 implements Beer { public void setting() {} }
+    static final class Beer51 implements Beer { public void setting() {} }
+    static final class Beer52 implements Beer { public void setting() {} }
+    static final class Beer53 implements Beer { public void setting() {} }
+    static final class Beer54 implements Beer { public void setting() {} }
+    static final class Beer55 implements Beer { public void setting() {} }
+    static final class Beer56 implements Beer { public void setting() {} }
+    static final class Beer57 implements Beer { public void setting() {} }
+    static final class Beer58 implements Beer { public void setting() {} }
+    static final class Beer59 implements Beer { public void setting() {} }
+    static final class Beer60 implements Beer { public void setting() {} }
+    static final class Beer61 implements Beer { public void setting() {} }
+    static final class Beer62 implements Beer { public void setting() {} }
+    static final class Beer63 implements Beer { public void setting() {} }
+
+    static final class Factory0 extends AbstractBeerFactory { protected Beer createBeer() { return new Beer0(); } }
+    static final class Factory1 extends AbstractBeerFactory { protected Beer createBeer() { return new Beer1(); } }
+    static final class Factory2 extends AbstractBeerFactory { protected Beer createBeer() { return new Beer2(); } }
+    static final class Factory3 extends AbstractBeerFactory { protected Beer createBeer() { return new Beer3(); } }
+    static final class Factory4 extends AbstractBeerFactory { protected Beer createBeer() { return new Beer4(); } }
+    static final class Factory5 extends AbstractBeerFactory { protected Beer createBeer() { return new Beer5(); } }
+    static final class Factory6 extends AbstractBeerFactory { protected Beer createBeer() { return new Beer6(); } }
+    static final class Factory7 extends AbstractBeerFactory { protected Beer createBeer() { return new Beer7(); } }
+    static final class Factory8 extends AbstractBeerFactory { protected Beer createBeer() { return new Beer8(); } }
+    static final class Factory9 extends AbstractBeerFactory { protected Beer createBeer() { return new Beer9(); } }
+    static final class Factory10 extends AbstractBeerFactory { protected Beer createBeer() { return new Beer10(); } }
+    static final class Factory11 extends AbstractBeerFactory { protected Beer createBeer() { return new Beer11(); } }
+    static final class Factory12 extends AbstractBeerFactory { protected Beer createBeer() { return new Beer12(); } }
+    static final class Factory13 extends AbstractBeerFactory { protected Beer createBeer() { return new Beer13(); } }
+    static final class Factory14 extends AbstractBeerFactory { protected Beer createBeer() { return new Beer14(); } }
+    static final class Factory15 extends AbstractBeerFactory { protected Beer createBeer() { return new Beer15(); } }
+    static final class Factory16 extends AbstractBeerFactory { protected Beer createBeer() { return new Beer16(); } }
+    static final class Factory17 extends AbstractBeerFactory { protected Beer createBeer() { return new Beer17(); } }
+    static final class Factory18 extends AbstractBeerFactory { protected Beer createBeer() { return new Beer18(); } }
+    static final class Factory19 extends AbstractBeerFactory { protected Beer createBeer() { return new Beer19(); } }
+    static final class Factory20 extends AbstractBeerFactory { protected Beer createBeer() { return new Beer20(); } }
+    static final class Factory21 extends AbstractBeerFactory { protected Beer createBeer() { return new Beer21(); } }
+    static final class Factory22 extends AbstractBeerFactory { protected Beer createBeer() { return new Beer22(); } }
+    static final class Factory23 extends AbstractBeerFactory { protected Beer createBeer() { return new Beer23(); } }
+    static final class Factory24 extends AbstractBeerFactory { protected Beer createBeer() { return new Beer24(); } }
+    static final class Factory25 extends AbstractBeerFactory { protected Beer createBeer() { return new Beer25(); } }
+    static final class Factory26 extends AbstractBeerFactory { protected Beer createBeer() { return new Beer26(); } }
+    static final class Factory27 extends AbstractBeerFactory { protected Beer createBeer() { return new Beer27(); } }
+    static final class Factory28 extends AbstractBeerFactory { protected Beer createBeer() { return new Beer28(); } }
+    static final class Factory29 extends AbstractBeerFactory { protected Beer createBeer() { return new Beer29(); } }
+    static final class Factory30 extends AbstractBeerFactory { protected Beer createBeer() { return new Beer30(); } }
+    static final class Factory31 extends AbstractBeerFactory { protected Beer createBeer() { return new Beer31(); } }
+    static final class Factory32 extends AbstractBeerFactory { protected Beer createBeer() { return new Beer32(); } }
+    static final class Factory33 extends AbstractBeerFactory { protected Beer createBeer() { return new Beer33(); } }
+    static final class Factory34 extends AbstractBeerFactory { protected Beer createBeer() { return new Beer34(); } }
+    static final class Factory35 extends AbstractBeerFactory { protected Beer createBeer() { return new Beer35(); } }
+    static final class Factory36 extends AbstractBeerFactory { protected Beer createBeer() { return new Beer36(); } }
+    static final class Factory37 extends AbstractBeerFactory { protected Beer createBeer() { return new Beer37(); } }
+    static final class Factory38 extends AbstractBeerFactory { protected Beer createBeer() { return new Beer38(); } }
+    static final class Factory39 extends AbstractBeerFactory { protected Beer createBeer() { return new Beer39(); } }
+    static final class Factory40 extends AbstractBeerFactory { protected Beer createBeer() { return new Beer40(); } }
+    static final class Factory41 extends AbstractBeerFactory { protected Beer createBeer() { return new Beer41(); } }
+    static final class Factory42 extends AbstractBeerFactory { protected Beer createBeer() { return new Beer42(); } }
+    static final class Factory43 extends AbstractBeerFactory { protected Beer createBeer() { return new Beer43(); } }
+    static final class Factory44 extends AbstractBeerFactory { protected Beer createBeer() { return new Beer44(); } }
+    static final class Factory45 extends AbstractBeerFactory { protected Beer createBeer() { return new Beer45(); } }
+    static final class Factory46 extends AbstractBeerFactory { protected Beer createBeer() { return new Beer46(); } }
+    static final class Factory47 extends AbstractBeerFactory { protected Beer createBeer() { return new Beer47(); } }
+    static final class Factory48 extends AbstractBeerFactory { protected Beer createBeer() { return new Beer48(); } }
+    static final class Factory49 extends AbstractBeerFactory { protected Beer createBeer() { return new Beer49(); } }
+    static final class Factory50 extends AbstractBeerFactory { protected Beer createBeer() { return new Beer50(); } }
+    static final class Factory51 extends AbstractBeerFactory { protected Beer createBeer() { return new Beer51(); } }
+    static final class Factory52 extends AbstractBeerFactory { protected Beer createBeer() { return new Beer52(); } }
+    static final class Factory53 extends AbstractBeerFactory { protected Beer createBeer() { return new Beer53(); } }
+    static final class Factory54 extends AbstractBeerFactory { protected Beer createBeer() { return new Beer54(); } }
+    static final class Factory55 extends AbstractBeerFactory { protected Beer createBeer() { return new Beer55(); } }
+    static final class Factory56 extends AbstractBeerFactory { protected Beer createBeer() { return new Beer56(); } }
+    static final class Factory57 extends AbstractBeerFactory { protected Beer createBeer() { return new Beer57(); } }
+    static final class Factory58 extends AbstractBeerFactory { protected Beer createBeer() { return new Beer58(); } }
+    static final class Factory59 extends AbstractBeerFactory { protected Beer createBeer() { return new Beer59(); } }
+    static final class Factory60 extends AbstractBeerFactory { protected Beer createBeer() { return new Beer60(); } }
+    static final class Factory61 extends AbstractBeerFactory { protected Beer createBeer() { return new Beer61(); } }
+    static final class Factory62 extends AbstractBeerFactory { protected Beer createBeer() { return new Beer62(); } }
+    static final class Factory63 extends AbstractBeerFactory { protected Beer createBeer() { return new Beer63(); } }
+}
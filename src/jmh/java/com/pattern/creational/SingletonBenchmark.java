@@ -0,0 +1,91 @@
+package com.pattern.creational;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/* 싱글톤 getInstance() 벤치마크
+ * Singleton.java 의 8가지 기법을 1 / 4 / 16 / 64 스레드 경합 상황에서 측정
+ *  1. Throughput : 초당 getInstance() 호출 수
+ *  2. SampleTime : 호출 지연 분포 -> 결과의 p0.99 가 p99 지연
+ * 스레드 수는 JMH 가 @Param 으로 받을 수 없어서 상속 구조로 처리 (부모의 @Benchmark 메소드를 자식이 @Threads 만 바꿔 상속)
+ * 실행 -> ./gradlew jmh -Pjmh.includes=SingletonBenchmark
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public abstract class SingletonBenchmark {
+
+    @Benchmark
+    public Object eagerInitialization() {
+        return EagerInitialization.getInstance();
+    }
+
+    @Benchmark
+    public Object staticBlockInitialization() {
+        return StaticBlockInitialization.getInstance();
+    }
+
+    @Benchmark
+    public Object lazyInitialization() {
+        return LazyInitialization.getInstance();
+    }
+
+    @Benchmark
+    public Object threadSafeInitialization() {
+        return ThreadSafeInitialization.getInstance();
+    }
+
+    @Benchmark
+    public Object doubleCheckedLocking() {
+        return DoubleCheckedLocking.getInstance();
+    }
+
+    @Benchmark
+    public Object billPughSolution() {
+        return BillPughSolution.getInstance();
+    }
+
+    @Benchmark
+    public Object singletonEnum() {
+        return SingletonEnum.getInstance();
+    }
+
+    @Benchmark
+    public Object lazyRefInitialization() {
+        return LazyRefInitialization.getInstance();
+    }
+
+    @Threads(1)
+    public static class Threads1 extends SingletonBenchmark {}
+
+    @Threads(4)
+    public static class Threads4 extends SingletonBenchmark {}
+
+    @Threads(16)
+    public static class Threads16 extends SingletonBenchmark {}
+
+    @Threads(64)
+    public static class Threads64 extends SingletonBenchmark {}
+
+    /* Cold Start : 최초 호출 비용(클래스 로딩 + 초기화 + 첫 getInstance())
+     * 한 JVM 안에서는 싱글톤이 한번만 초기화 되기 때문에 fork 마다 딱 1번만 호출해서 측정
+     * 그래서 warmup 없이 fork 수를 늘려서 표본을 모음
+     */
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 0)
+    @Measurement(iterations = 1)
+    @Fork(20)
+    @Threads(1)
+    public static class ColdStart extends SingletonBenchmark {}
+}
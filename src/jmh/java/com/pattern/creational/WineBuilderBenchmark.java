@@ -0,0 +1,138 @@
+package com.pattern.creational;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/* WineBuilder 인코더 벤치마크
+ * legacy* : 이스케이프 없이 head() / body() / foot() 문자열을 이어 붙이던 기존 빌더 코드 (비교용으로 그대로 복사)
+ * 나머지 : TextEscaper + EncodedFragment 를 쓰는 현재 빌더를 StringBuilder / ByteBuffer 에 스트리밍
+ * name 파라미터로 이스케이프가 필요 없는 이름(fast path)과 특수문자가 섞인 이름을 같이 측정
+ * 실행 -> ./gradlew jmh -Pjmh.includes=WineBuilderBenchmark
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class WineBuilderBenchmark {
+
+    @Param({"Chateau Margaux", "Château \"Margaux\" <Grand Cru> & Co"})
+    String name;
+
+    Wine wine;
+    StringBuilder sb;
+    ByteBuffer buffer;
+    JSONBuilder jsonBuilder;
+    XMLBuilder xmlBuilder;
+
+    @Setup
+    public void setUp() {
+        wine = new Wine(name, 2015);
+        sb = new StringBuilder(256);
+        buffer = ByteBuffer.allocate(256);
+        jsonBuilder = new JSONBuilder();
+        xmlBuilder = new XMLBuilder();
+    }
+
+    @Benchmark
+    public String legacyJson() {
+        return legacyJsonHead() + legacyJsonBody(wine) + legacyJsonFoot();
+    }
+
+    @Benchmark
+    public String legacyXml() {
+        return legacyXmlHead() + legacyXmlBody(wine) + legacyXmlFoot();
+    }
+
+    @Benchmark
+    public String json() {
+        return new Director(new JSONBuilder(wine)).build();
+    }
+
+    @Benchmark
+    public String xml() {
+        return new Director(new XMLBuilder(wine)).build();
+    }
+
+    @Benchmark
+    public int jsonStreaming() throws IOException {
+        sb.setLength(0);
+        jsonBuilder.writeHead(sb);
+        jsonBuilder.writeBody(wine, sb);
+        jsonBuilder.writeFoot(sb);
+        return sb.length();
+    }
+
+    @Benchmark
+    public int xmlStreaming() throws IOException {
+        sb.setLength(0);
+        xmlBuilder.writeHead(sb);
+        xmlBuilder.writeBody(wine, sb);
+        xmlBuilder.writeFoot(sb);
+        return sb.length();
+    }
+
+    @Benchmark
+    public int jsonByteBuffer() throws IOException {
+        buffer.clear();
+        ByteBufferAppendable out = new ByteBufferAppendable(buffer);
+        jsonBuilder.writeHead(out);
+        jsonBuilder.writeBody(wine, out);
+        jsonBuilder.writeFoot(out);
+        return buffer.position();
+    }
+
+    // 기존 빌더 구현 (이스케이프 없음, XML 닫는 태그 오류 포함)
+    private static String legacyJsonHead() {
+        return "{\n";
+    }
+
+    private static String legacyJsonBody(Wine wine) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("\t\"Name\" : ");
+        sb.append("\"" + wine.getName() + "\",\n");
+        sb.append("\t\"Year\" : ");
+        sb.append(wine.getYear());
+        return sb.toString();
+    }
+
+    private static String legacyJsonFoot() {
+        return "\n}";
+    }
+
+    private static String legacyXmlHead() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("<?xml version=\"1.0\" encoding=\"UTF-8\" ?>\n");
+        sb.append("<WINE>\n");
+        return sb.toString();
+    }
+
+    private static String legacyXmlBody(Wine wine) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("\t<NAME>");
+        sb.append(wine.getName());
+        sb.append("<NAME>");
+        sb.append("\n\t<YEAR>");
+        sb.append(wine.getYear());
+        sb.append("<YEAR>");
+        return sb.toString();
+    }
+
+    private static String legacyXmlFoot() {
+        return "\n</WINE>";
+    }
+}
@@ -0,0 +1,80 @@
+package com.pattern.structural;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/* ProtectionProxy 권한 확인 비용 벤치마크
+ *  1. evaluatePolicy : 호출마다 규칙 목록을 평가 (캐시 없음)
+ *  2. cachedCheck : AccessGuard 캐시 히트 경로
+ *  3. cachedCheckWithReload : 가끔(1024 번에 한번) 정책을 교체하면서 확인 (교체 직후는 미스)
+ * rules 는 정책의 규칙 수, 일치하는 규칙은 마지막에 둠
+ * 스레드 수는 SingletonBenchmark 와 같이 상속으로 나눔
+ * 실행 -> ./gradlew jmh -Pjmh.includes=AccessGuardBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public abstract class AccessGuardBenchmark {
+
+    @Param({"10", "1000"})
+    int rules;
+
+    AccessPolicy policy;
+    AccessGuard guard;
+    AccessGuard reloadingGuard;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        AccessPolicy.Builder builder = AccessPolicy.builder();
+        for(int i = 1; i < rules; i++)
+            builder.allow("user-" + i, ProtectionProxy.ACTION);
+        policy = builder.allow("admin", AccessPolicy.ANY).build();
+
+        guard = new AccessGuard(policy, 10_000);
+        reloadingGuard = new AccessGuard(policy, 10_000);
+    }
+
+    @State(Scope.Thread)
+    public static class Counter {
+        int calls;
+    }
+
+    @Benchmark
+    public boolean evaluatePolicy() {
+        return policy.evaluate("admin", ProtectionProxy.ACTION);
+    }
+
+    @Benchmark
+    public boolean cachedCheck() {
+        return guard.check("admin", ProtectionProxy.ACTION);
+    }
+
+    @Benchmark
+    public boolean cachedCheckWithReload(Counter counter) {
+        if((++counter.calls & 1023) == 0)
+            reloadingGuard.reload(policy);
+        return reloadingGuard.check("admin", ProtectionProxy.ACTION);
+    }
+
+    @Threads(1)
+    public static class Threads1 extends AccessGuardBenchmark {}
+
+    @Threads(8)
+    public static class Threads8 extends AccessGuardBenchmark {}
+}
@@ -0,0 +1,168 @@
+package com.pattern.structural;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.invoke.MethodHandle;
+import java.util.concurrent.TimeUnit;
+
+/* 중첩 데코레이터 vs DecoratorChain 벤치마크
+ * 장식 깊이 1 ~ 32 에서 operation() 한번의 비용을 비교
+ *  1. nested : new D1(new D2(new D3(...))) 중첩 호출
+ *  2. fusedRunnables : DecoratorChain.fuse() 로 펼친 Runnable 배열
+ *  3. fusedMethodHandle : toMethodHandle() 의 invokeExact (필드에 담긴 MethodHandle 이라 상수 인라이닝은 안되는 경우)
+ * 네 종류의 장식자를 섞어서 쌓고, setUp 에서 모든 깊이를 한번씩 돌려 호출 지점을 megamorphic 으로 만든 뒤 측정 (실제 서비스와 같은 조건)
+ * 실행 -> ./gradlew jmh -Pjmh.includes=DecoratorChainBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(3)
+@State(Scope.Thread)
+public class DecoratorChainBenchmark {
+
+    @Param({"1", "2", "4", "8", "16", "32"})
+    int depth;
+
+    Sink sink;
+    IComponent nested;
+    DecoratorChain fused;
+    MethodHandle handle;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        sink = new Sink();
+
+        // 프로파일 오염 : 모든 깊이의 체인을 미리 돌려서 호출 지점이 여러 타입을 보게 함
+        for(int d = 1; d <= 32; d++) {
+            IComponent warm = decorate(d);
+            DecoratorChain warmFused = DecoratorChain.fuse(warm);
+            for(int i = 0; i < 10_000; i++) {
+                warm.operation();
+                warmFused.operation();
+            }
+        }
+
+        nested = decorate(depth);
+        fused = DecoratorChain.fuse(nested);
+        handle = fused.toMethodHandle();
+    }
+
+    @Benchmark
+    public long nested() {
+        nested.operation();
+        return sink.value;
+    }
+
+    @Benchmark
+    public long fusedRunnables() {
+        fused.operation();
+        return sink.value;
+    }
+
+    @Benchmark
+    public long fusedMethodHandle() throws Throwable {
+        handle.invokeExact();
+        return sink.value;
+    }
+
+    IComponent decorate(int depth) {
+        IComponent component = new ConcreteComponent();
+        for(int i = 0; i < depth; i++) {
+            switch(i & 3) {
+                case 0: component = new D1(component, sink); break;
+                case 1: component = new D2(component, sink); break;
+                case 2: component = new D3(component, sink); break;
+                default: component = new D4(component, sink); break;
+            }
+        }
+        return component;
+    }
+
+    static final class Sink {
+        long value;
+    }
+
+    static final class D1 extends AbstractDecorator {
+        final Sink sink;
+
+        D1(IComponent wrapper, Sink sink) {
+            super(wrapper);
+            this.sink = sink;
+        }
+
+        public void operation() {
+            super.operation();
+            extraOperation();
+        }
+
+        void extraOperation() {
+            sink.value += 1;
+        }
+    }
+
+    static final class D2 extends AbstractDecorator {
+        final Sink sink;
+
+        D2(IComponent wrapper, Sink sink) {
+            super(wrapper);
+            this.sink = sink;
+        }
+
+        public void operation() {
+            super.operation();
+            extraOperation();
+        }
+
+        void extraOperation() {
+            sink.value ^= 0x5DEECE66DL;
+        }
+    }
+
+    static final class D3 extends AbstractDecorator {
+        final Sink sink;
+
+        D3(IComponent wrapper, Sink sink) {
+            super(wrapper);
+            this.sink = sink;
+        }
+
+        public void operation() {
+            super.operation();
+            extraOperation();
+        }
+
+        void extraOperation() {
+            sink.value *= 31;
+        }
+    }
+
+    static final class D4 extends AbstractDecorator {
+        final Sink sink;
+
+        D4(IComponent wrapper, Sink sink) {
+            super(wrapper);
+            this.sink = sink;
+        }
+
+        public void operation() {
+            super.operation();
+            extraOperation();
+        }
+
+        void extraOperation() {
+            sink.value = Long.rotateLeft(sink.value, 7);
+        }
+    }
+}
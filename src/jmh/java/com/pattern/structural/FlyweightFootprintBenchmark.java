@@ -0,0 +1,133 @@
+package com.pattern.structural;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/* 플라이웨이트 메모리 사용량 벤치마크
+ * 기존 HashMap<String, iFlyweight> 방식과 FlyweightStore(on-heap / off-heap) 에 10^6, 10^7 개의 키를 넣고
+ * GC 후 남아있는 heap / direct 메모리 증가량을 보조 지표(heapBytes, directBytes)로 출력
+ * 키 문자열은 미리 만들어 두고 측정에서 제외 (HashMap 은 키 String 을 그대로 붙잡고 있으므로 keyBytes 로 따로 출력)
+ * 실행 -> ./gradlew jmh -Pjmh.includes=FlyweightFootprintBenchmark
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(value = 3, jvmArgsAppend = {"-Xms6g", "-Xmx6g", "-XX:MaxDirectMemorySize=2g"})
+@State(Scope.Benchmark)
+public class FlyweightFootprintBenchmark {
+
+    @Param({"1000000", "10000000"})
+    int keys;
+
+    String[] intrinsicStates;
+    long keyBytes;
+    // 모든 키의 실제 UTF-8 길이 + intern 이 요구하는 여유 공간 (측정 중에 아레나가 늘어나지 않도록)
+    int arenaBytes;
+
+    // 측정 결과가 GC 되지 않도록 붙잡아 둠
+    Object retained;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        retained = null;
+        intrinsicStates = new String[keys];
+        long before = usedHeap();
+        for(int i = 0; i < keys; i++)
+            intrinsicStates[i] = "intrinsic-" + i;
+        keyBytes = usedHeap() - before;
+
+        long encoded = 0;
+        int longest = 0;
+        for(String state : intrinsicStates) {
+            int length = state.getBytes(StandardCharsets.UTF_8).length;
+            encoded += length;
+            longest = Math.max(longest, state.length());
+        }
+        arenaBytes = Math.toIntExact(encoded + longest * 3L);   // intern 은 tail 뒤에 length * 3 바이트를 확보한 뒤 인코딩
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Footprint {
+        public long heapBytes;
+        public long directBytes;
+        public long keyBytes;
+    }
+
+    @Benchmark
+    public void hashMapFlyweight(Footprint footprint) {
+        long heap = usedHeap();
+        long direct = usedDirect();
+
+        Map<String, iFlyweight> flyweight = new HashMap<>();
+        for(String state : intrinsicStates)
+            flyweight.put(state, new ConcreteFlyweight(state));
+
+        record(footprint, heap, direct, flyweight);
+    }
+
+    @Benchmark
+    public void onHeapStore(Footprint footprint) {
+        long heap = usedHeap();
+        long direct = usedDirect();
+
+        FlyweightStore store = FlyweightStore.onHeap(keys, arenaBytes);
+        for(String state : intrinsicStates)
+            store.intern(state);
+
+        record(footprint, heap, direct, store);
+    }
+
+    @Benchmark
+    public void offHeapStore(Footprint footprint) {
+        long heap = usedHeap();
+        long direct = usedDirect();
+
+        FlyweightStore store = FlyweightStore.offHeap(keys, arenaBytes);
+        for(String state : intrinsicStates)
+            store.intern(state);
+
+        record(footprint, heap, direct, store);
+    }
+
+    private void record(Footprint footprint, long heap, long direct, Object structure) {
+        retained = structure;
+        footprint.heapBytes = usedHeap() - heap;
+        footprint.directBytes = usedDirect() - direct;
+        footprint.keyBytes = keyBytes;
+    }
+
+    private static long usedHeap() {
+        for(int i = 0; i < 3; i++)
+            System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static long usedDirect() {
+        for(BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+            if("direct".equals(pool.getName()))
+                return pool.getMemoryUsed();
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,201 @@
+package com.pattern.structural;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/* 객체 트리(CompositeC) vs 얼린 배열 트리(FrozenComposite) 벤치마크
+ * 약 100만개의 Leaf 를 가진 트리를 fanout(자식 수) 별로 만들어서 비교
+ *  1. 순회 속도 : 전체 노드 방문, Leaf 만 방문, 서브트리 건너뛰기(루트의 첫 자식 서브트리만 빼고 방문), 서브트리 집계
+ *  2. 메모리 : GC 후 구조(Leaf 객체 제외)가 차지하는 heap 증가량을 보조 지표(heapBytes)로 출력 -> Footprint 클래스
+ * 실행 -> ./gradlew jmh -Pjmh.includes=FrozenCompositeBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class FrozenCompositeBenchmark {
+
+    static final int LEAVES = 1 << 20;
+
+    @Param({"4", "32", "1024"})
+    int fanout;
+
+    CompositeC tree;
+    FrozenComposite frozen;
+    long[] prefix;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        tree = build(leaves(), fanout);
+        frozen = tree.freeze();
+        prefix = frozen.prefixSums(FrozenCompositeBenchmark::weight);
+    }
+
+    @Benchmark
+    public long objectWalk() {
+        long[] count = new long[1];
+        CompositeWalker.UNBOUNDED.walk(tree, component -> count[0]++);
+        return count[0];
+    }
+
+    @Benchmark
+    public long frozenWalk() {
+        long[] count = new long[1];
+        frozen.walk(node -> {
+            count[0]++;
+            return true;
+        });
+        return count[0];
+    }
+
+    @Benchmark
+    public long objectLeafSum() {
+        long[] sum = new long[1];
+        CompositeWalker.UNBOUNDED.walk(tree, component -> {
+            if(component instanceof Leaf)
+                sum[0] += weight(component);
+        });
+        return sum[0];
+    }
+
+    @Benchmark
+    public long frozenLeafSum() {
+        return frozen.sumLeaves(0, FrozenCompositeBenchmark::weight);
+    }
+
+    // 루트의 첫 자식 서브트리를 빼고 순회 (객체 트리는 건너뛰기 기능이 없어서 루트의 나머지 자식을 하나씩 순회)
+    @Benchmark
+    public long objectSkipFirstSubtree() {
+        long[] count = {1};   // 루트
+        for(int i = 1; i < tree.componentList.size(); i++)
+            CompositeWalker.UNBOUNDED.walk(tree.componentList.get(i), component -> count[0]++);
+        return count[0];
+    }
+
+    @Benchmark
+    public long frozenSkipFirstSubtree() {
+        long[] count = new long[1];
+        frozen.walk(node -> {
+            if(node == 1)
+                return false;
+            count[0]++;
+            return true;
+        });
+        return count[0];
+    }
+
+    // 루트의 직계 자식마다 서브트리 합계 (누적합으로 O(1))
+    @Benchmark
+    public long frozenSubtreeSums() {
+        long[] total = new long[1];
+        frozen.forEachChild(0, child -> total[0] += frozen.subtreeSum(child, prefix));
+        return total[0];
+    }
+
+    @Benchmark
+    public long objectSubtreeSums() {
+        long total = 0;
+        for(Component child : tree.componentList) {
+            long[] sum = new long[1];
+            CompositeWalker.UNBOUNDED.walk(child, component -> {
+                if(component instanceof Leaf)
+                    sum[0] += weight(component);
+            });
+            total += sum[0];
+        }
+        return total;
+    }
+
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 0)
+    @Measurement(iterations = 1)
+    @Fork(value = 3, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+    @State(Scope.Benchmark)
+    public static class Footprint {
+
+        @Param({"4", "32", "1024"})
+        int fanout;
+
+        Leaf[] leaves;
+
+        // 측정 결과가 GC 되지 않도록 붙잡아 둠
+        Object retained;
+
+        @Setup(Level.Iteration)
+        public void setUp() {
+            retained = null;
+            leaves = leaves();
+        }
+
+        @State(Scope.Thread)
+        @AuxCounters(AuxCounters.Type.EVENTS)
+        public static class Bytes {
+            public long heapBytes;
+        }
+
+        @Benchmark
+        public void objectTree(Bytes bytes) {
+            long heap = usedHeap();
+            retained = build(leaves, fanout);
+            bytes.heapBytes = usedHeap() - heap;
+        }
+
+        // 얼린 뒤 원본 트리는 버리고 배열만 남김
+        @Benchmark
+        public void frozenTree(Bytes bytes) {
+            long heap = usedHeap();
+            retained = build(leaves, fanout).freeze();
+            bytes.heapBytes = usedHeap() - heap;
+        }
+    }
+
+    static Leaf[] leaves() {
+        Leaf[] leaves = new Leaf[LEAVES];
+        for(int i = 0; i < leaves.length; i++)
+            leaves[i] = new Leaf();
+        return leaves;
+    }
+
+    // Leaf 를 fanout 개씩 묶어 복합체를 만들고, 그 복합체를 다시 fanout 개씩 묶어 루트 하나가 남을 때까지 반복
+    static CompositeC build(Leaf[] leaves, int fanout) {
+        Component[] level = leaves;
+        do {
+            Component[] parents = new Component[(level.length + fanout - 1) / fanout];
+            for(int i = 0; i < parents.length; i++) {
+                CompositeC parent = new CompositeC();
+                for(int j = i * fanout, end = Math.min(j + fanout, level.length); j < end; j++)
+                    parent.add(level[j]);
+                parents[i] = parent;
+            }
+            level = parents;
+        } while(level.length > 1);
+        return (CompositeC) level[0];
+    }
+
+    static long weight(Component leaf) {
+        return System.identityHashCode(leaf) & 0xFF;
+    }
+
+    private static long usedHeap() {
+        for(int i = 0; i < 3; i++)
+            System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,100 @@
+package com.pattern.structural;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/* LoggingProxy 오버헤드 벤치마크
+ * 프록시 없이 원본을 직접 호출하는 것과 비교해서 호출자 쪽에 더해지는 지연을 측정
+ *  1. direct : 원본 객체 직접 호출 (기준)
+ *  2. printlnProxy : 예전 LoggingProxy 처럼 호출마다 println 4번 (출력은 버리지만 PrintStream 락은 그대로 잡음)
+ *  3. ringBufferProxy : ProxyEventLog 링 버퍼에 기록하는 LoggingProxy (sampleEvery 1 / 16)
+ * 원본 객체는 Blackhole.consumeCPU 로 약간의 일만 함 (RealSubject 는 println 을 하므로 사용하지 않음)
+ * 스레드 수는 SingletonBenchmark 와 같이 상속으로 나눔, dropped 가 많다면 capacity 를 늘려야 함 (TearDown 에서 출력)
+ * 실행 -> ./gradlew jmh -Pjmh.includes=LoggingProxyBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public abstract class LoggingProxyBenchmark {
+
+    @Param({"1", "16"})
+    int sampleEvery;
+
+    Path logFile;
+    ProxyEventLog eventLog;
+    PrintStream discard;
+
+    ISubject subject;
+    ISubject ringBufferProxy;
+    ISubject printlnProxy;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        logFile = Files.createTempFile("logging-proxy-benchmark", ".jsonl");
+        eventLog = ProxyEventLog.open(logFile, 1 << 16, sampleEvery);
+        discard = new PrintStream(OutputStream.nullOutputStream());
+
+        subject = () -> Blackhole.consumeCPU(64);
+        ringBufferProxy = new LoggingProxy(subject, eventLog);
+        printlnProxy = () -> {
+            discard.println("Logging Start");
+            subject.action();
+            discard.println("LoggingProxy -> 프록시 객체 call");
+            discard.println("Logging End");
+        };
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        eventLog.close();
+        System.out.println("written = " + eventLog.written() + ", dropped = " + eventLog.dropped());
+        Files.deleteIfExists(logFile);
+    }
+
+    @Benchmark
+    public void direct() {
+        subject.action();
+    }
+
+    @Benchmark
+    public void printlnProxy() {
+        printlnProxy.action();
+    }
+
+    @Benchmark
+    public void ringBufferProxy() {
+        ringBufferProxy.action();
+    }
+
+    @Threads(1)
+    public static class Threads1 extends LoggingProxyBenchmark {}
+
+    @Threads(4)
+    public static class Threads4 extends LoggingProxyBenchmark {}
+
+    @Threads(16)
+    public static class Threads16 extends LoggingProxyBenchmark {}
+}
@@ -0,0 +1,144 @@
+package com.pattern.structural;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.InvocationHandler;
+import java.util.concurrent.TimeUnit;
+
+/* 프록시 호출 비용 벤치마크
+ * 인자 2개를 받아 값을 반환하는 메소드 하나를 여러 방식의 프록시로 호출
+ *  1. direct : 대상 직접 호출 (기준)
+ *  2. handWritten / handWrittenCounting : 손으로 만든 위임 프록시 (인터셉터 없음 / 호출 수 세기)
+ *  3. jdkReflective / jdkReflectiveCounting : java.lang.reflect.Proxy + 호출마다 Method.invoke (흔히 쓰는 동적 프록시)
+ *  4. proxyFactory / proxyFactoryCounting : ProxyFactory (생성된 hidden class + 메소드 별 핸들러 테이블)
+ * 실행 -> ./gradlew jmh -Pjmh.includes=ProxyFactoryBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(3)
+@State(Scope.Thread)
+public class ProxyFactoryBenchmark {
+
+    interface Calculator {
+        long add(long a, long b);
+    }
+
+    static final class RealCalculator implements Calculator {
+        public long add(long a, long b) {
+            return a + b;
+        }
+    }
+
+    static final class HandWrittenProxy implements Calculator {
+        private final Calculator target;
+
+        HandWrittenProxy(Calculator target) {
+            this.target = target;
+        }
+
+        public long add(long a, long b) {
+            return target.add(a, b);
+        }
+    }
+
+    static final class HandWrittenCountingProxy implements Calculator {
+        private final Calculator target;
+        long calls;
+
+        HandWrittenCountingProxy(Calculator target) {
+            this.target = target;
+        }
+
+        public long add(long a, long b) {
+            calls++;
+            return target.add(a, b);
+        }
+    }
+
+    long a = 17;
+    long b = 25;
+    long calls;
+
+    Calculator direct;
+    Calculator handWritten;
+    Calculator handWrittenCounting;
+    Calculator jdkReflective;
+    Calculator jdkReflectiveCounting;
+    Calculator proxyFactory;
+    Calculator proxyFactoryCounting;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Calculator target = new RealCalculator();
+
+        direct = target;
+        handWritten = new HandWrittenProxy(target);
+        handWrittenCounting = new HandWrittenCountingProxy(target);
+
+        jdkReflective = jdkProxy((proxy, method, args) -> method.invoke(target, args));
+        jdkReflectiveCounting = jdkProxy((proxy, method, args) -> {
+            calls++;
+            return method.invoke(target, args);
+        });
+
+        proxyFactory = ProxyFactory.builder(Calculator.class).build().create(target);
+        proxyFactoryCounting = ProxyFactory.builder(Calculator.class)
+                .intercept((method, t, args, next) -> {
+                    calls++;
+                    return next.invoke(t, args);
+                })
+                .build()
+                .create(target);
+    }
+
+    @Benchmark
+    public long direct() {
+        return direct.add(a, b);
+    }
+
+    @Benchmark
+    public long handWritten() {
+        return handWritten.add(a, b);
+    }
+
+    @Benchmark
+    public long handWrittenCounting() {
+        return handWrittenCounting.add(a, b);
+    }
+
+    @Benchmark
+    public long jdkReflective() {
+        return jdkReflective.add(a, b);
+    }
+
+    @Benchmark
+    public long jdkReflectiveCounting() {
+        return jdkReflectiveCounting.add(a, b);
+    }
+
+    @Benchmark
+    public long proxyFactory() {
+        return proxyFactory.add(a, b);
+    }
+
+    @Benchmark
+    public long proxyFactoryCounting() {
+        return proxyFactoryCounting.add(a, b);
+    }
+
+    private static Calculator jdkProxy(InvocationHandler handler) {
+        return (Calculator) java.lang.reflect.Proxy.newProxyInstance(Calculator.class.getClassLoader(), new Class<?>[]{Calculator.class}, handler);
+    }
+}
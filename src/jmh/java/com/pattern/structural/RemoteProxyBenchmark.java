@@ -0,0 +1,77 @@
+package com.pattern.structural;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/* RemoteProxy 호출 비용 벤치마크 (호출 하나 당 시간)
+ *  1. sequential : 호출마다 응답을 기다림 (호출 당 왕복 한번)
+ *  2. pipelined : CALLS 개를 응답 없이 보내고 한번에 기다림 (왕복이 겹치고 writer 가 배치로 묶음)
+ * latencyMicros 는 RemoteSkeleton 의 응답 지연 (0 -> loopback 그대로), maxBatch 1 이면 파이프라이닝만 하고 배치는 하지 않음
+ * 실행 -> ./gradlew jmh -Pjmh.includes=RemoteProxyBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RemoteProxyBenchmark {
+    private static final int CALLS = 256;
+
+    @Param({"0", "200"})
+    int latencyMicros;
+
+    @Param({"1", "4"})
+    int poolSize;
+
+    @Param({"1", "64"})
+    int maxBatch;
+
+    RemoteSkeleton skeleton;
+    RemoteProxy proxy;
+
+    final CompletableFuture<?>[] calls = new CompletableFuture<?>[CALLS];
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        skeleton = RemoteSkeleton.open(() -> {}, Duration.ofNanos(latencyMicros * 1_000L));
+        proxy = RemoteProxy.connect(skeleton.address(), poolSize, maxBatch);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.out.println("calls / frame = " + (double) proxy.callsSent() / Math.max(1, proxy.framesSent()));
+        proxy.close();
+        skeleton.close();
+    }
+
+    @Benchmark
+    public void sequential() {
+        proxy.action();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CALLS)
+    public void pipelined() {
+        for(int i = 0; i < CALLS; i++)
+            calls[i] = proxy.actionAsync();
+        CompletableFuture.allOf(calls).join();
+    }
+}
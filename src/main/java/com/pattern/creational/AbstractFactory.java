@@ -1,5 +1,10 @@
 package com.pattern.creational;
 
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
 /* 추상팩토리 패턴
  * 관련된 객체군을 생성 -> 플랫폼 독립 Graphical User Interface
  * 장점
@@ -28,6 +33,17 @@ public class AbstractFactory {
         // 2공장에서 맥주를 생성(클라이언트는 구체적인 구현 모름 인터페이스에 의존)
         KoreaAlcoholicDrink cass = bar.createKoreaAlcoholicDrink();
         System.out.println(cass.getClass().getName());
+
+        // 설정으로 공장군을 한번만 고르고, 상태 없는 제품은 공유 인스턴스로 캐시
+        Properties config = new Properties();
+        config.setProperty(BarSelector.FAMILY_KEY, "factory1");
+
+        BarSelector selector = BarSelector.fromConfiguration(config);
+        Bar current = selector.current(); // 한번 꺼낸 Bar 로 만든 제품들은 같은 공장군
+        System.out.println(current.createKoreaAlcoholicDrink() == current.createKoreaAlcoholicDrink()); // true (캐시)
+
+        selector.swap("factory2"); // 실행 중 교체 (읽는 쪽은 락 없이 새 공장군을 보게 됨)
+        System.out.println(selector.current().createJapanAlcoholicDrink().getClass().getName());
     }
 }
 
@@ -62,13 +78,90 @@ class DistributeFactory2 implements Bar {
 
 interface KoreaAlcoholicDrink {} // 한국 술
 
-class Soju implements KoreaAlcoholicDrink {} // 소주
+class Soju implements KoreaAlcoholicDrink, Stateless {} // 소주
 
-class Cass implements KoreaAlcoholicDrink {} // 맥주
+class Cass implements KoreaAlcoholicDrink, Stateless {} // 맥주
 
 interface JapanAlcoholicDrink {} // 일본 술
 
-class Sake implements JapanAlcoholicDrink {} // 사케
+class Sake implements JapanAlcoholicDrink, Stateless {} // 사케
+
+class Shochu implements JapanAlcoholicDrink, Stateless {} // 소츄
+
+// 상태가 없어서 하나의 인스턴스를 여러곳에서 같이 써도 되는 제품 표시
+interface Stateless {}
+
+/* 캐싱 공장 (Bar 데코레이터)
+ * 제품이 Stateless 면 처음 만든 인스턴스를 계속 반환하고, 상태가 있는 제품이면 매번 원래 공장에 위임
+ * 생성자에서 한번씩 만들어 보고 결정하기 때문에 이후 호출은 final 필드 읽기 뿐 (동기화 X)
+ */
+final class CachingBar implements Bar {
+    private final Bar delegate;
+    private final KoreaAlcoholicDrink koreaAlcoholicDrink; // Stateless 가 아니면 null
+    private final JapanAlcoholicDrink japanAlcoholicDrink;
+
+    CachingBar(Bar delegate) {
+        this.delegate = delegate;
 
-class Shochu implements JapanAlcoholicDrink {} // 소츄
+        KoreaAlcoholicDrink korea = delegate.createKoreaAlcoholicDrink();
+        this.koreaAlcoholicDrink = korea instanceof Stateless ? korea : null;
+
+        JapanAlcoholicDrink japan = delegate.createJapanAlcoholicDrink();
+        this.japanAlcoholicDrink = japan instanceof Stateless ? japan : null;
+    }
+
+    public KoreaAlcoholicDrink createKoreaAlcoholicDrink() {
+        return koreaAlcoholicDrink != null ? koreaAlcoholicDrink : delegate.createKoreaAlcoholicDrink();
+    }
+
+    public JapanAlcoholicDrink createJapanAlcoholicDrink() {
+        return japanAlcoholicDrink != null ? japanAlcoholicDrink : delegate.createJapanAlcoholicDrink();
+    }
+}
+
+/* 공장군 선택기
+ * main 처럼 클라이언트가 new DistributeFactory1() / new DistributeFactory2() 를 직접 바꿔 끼우지 않고
+ *  1. 설정(bar.family)으로 공장군을 한번만 골라 CachingBar 로 감싸 둠
+ *  2. current() 는 AtomicReference 읽기 한번 -> 여러 쓰레드가 동시에 읽어도 락 없음
+ *  3. swap() 은 새 CachingBar 를 만든 뒤 참조만 원자적으로 교체 -> 읽는 쪽은 옛 공장군이나 새 공장군 중 하나를 온전히 봄
+ *  4. 한 작업에서 여러 제품을 만들 때는 current() 를 한번만 꺼내서 쓰면 공장군이 섞이지 않음
+ */
+final class BarSelector {
+    static final String FAMILY_KEY = "bar.family";
+
+    // 공장군 이름 -> 공장 생성
+    private static final Map<String, Supplier<Bar>> FAMILIES = Map.of(
+            "factory1", DistributeFactory1::new,
+            "factory2", DistributeFactory2::new
+    );
+
+    private final AtomicReference<Bar> current;
+
+    private BarSelector(Bar bar) {
+        this.current = new AtomicReference<>(bar);
+    }
+
+    static BarSelector fromConfiguration(Properties config) {
+        String family = config.getProperty(FAMILY_KEY);
+        if(family == null)
+            throw new IllegalArgumentException("설정에 " + FAMILY_KEY + " 가 없음");
+        return new BarSelector(resolve(family));
+    }
+
+    Bar current() {
+        return current.get();
+    }
+
+    // 교체 전의 공장군을 반환
+    Bar swap(String family) {
+        return current.getAndSet(resolve(family));
+    }
+
+    private static Bar resolve(String family) {
+        Supplier<Bar> factory = FAMILIES.get(family);
+        if(factory == null)
+            throw new IllegalArgumentException("알 수 없는 공장군 -> " + family);
+        return new CachingBar(factory.get());
+    }
+}
 
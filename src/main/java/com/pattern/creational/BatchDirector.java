@@ -0,0 +1,197 @@
+package com.pattern.creational;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.stream.Stream;
+
+/* 병렬 배치 디렉터
+ * Director 는 호출한 쓰레드 하나에서 Wine 을 직렬화 하기 때문에 수백만 건이면 코어 하나만 씀
+ * BatchDirector 는
+ *  1. 입력을 chunkSize 건씩 잘라서 각 청크를 executor(ForkJoinPool 등) 에서 UTF-8 바이트로 직렬화
+ *  2. 호출한 쓰레드는 제출 순서대로 청크 결과를 기다려 FileChannel 에 이어 씀 -> 출력 순서는 입력 순서와 같음
+ *  3. 아직 쓰지 못한 청크가 maxInFlight 개가 되면 입력을 더 읽지 않고 가장 오래된 청크부터 씀(backpressure)
+ *      3-1 그래서 메모리에는 최대 maxInFlight 개 청크만 올라감
+ * WineBuilder 의 write* 는 인자로 받은 Wine 만 쓰고 상태가 없기 때문에 빌더 하나를 여러 쓰레드에서 같이 사용
+ * 텍스트 포맷은 WineBuilder, 바이너리 포맷은 WineBinaryFormat 으로 받아서 청크를 바이트로 만드는 방법만 다르게 함 (ChunkFormat)
+ * (sourceCompatibility 17 이라 가상 쓰레드 대신 ExecutorService 를 받음)
+ */
+class BatchDirector {
+    private final ChunkFormat format;
+    private final ExecutorService executor;
+    private final int chunkSize;
+    private final int maxInFlight;
+
+    BatchDirector(WineBuilder wineBuilder, ExecutorService executor, int chunkSize, int maxInFlight) {
+        this(new TextFormat(Objects.requireNonNull(wineBuilder, "wineBuilder")), executor, chunkSize, maxInFlight);
+    }
+
+    BatchDirector(WineBinaryFormat binaryFormat, ExecutorService executor, int chunkSize, int maxInFlight) {
+        this(new BinaryFormat(Objects.requireNonNull(binaryFormat, "binaryFormat")), executor, chunkSize, maxInFlight);
+    }
+
+    private BatchDirector(ChunkFormat format, ExecutorService executor, int chunkSize, int maxInFlight) {
+        if(chunkSize <= 0 || maxInFlight <= 0)
+            throw new IllegalArgumentException("chunkSize / maxInFlight 는 1 이상 -> " + chunkSize + " / " + maxInFlight);
+
+        this.format = format;
+        this.executor = executor;
+        this.chunkSize = chunkSize;
+        this.maxInFlight = maxInFlight;
+    }
+
+    public long write(Stream<Wine> wines, Path path) throws IOException {
+        try(FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            return write(wines.iterator(), channel);
+        }
+    }
+
+    // 쓴 바이트 수를 반환
+    public long write(Iterator<Wine> wines, FileChannel channel) throws IOException {
+        ArrayDeque<CompletableFuture<ByteBuffer>> inFlight = new ArrayDeque<>(maxInFlight);
+        long written = 0;
+
+        written += writeFully(channel, format.header());
+
+        try {
+            boolean first = true;
+            while(wines.hasNext()) {
+                List<Wine> chunk = new ArrayList<>(chunkSize);
+                while(chunk.size() < chunkSize && wines.hasNext())
+                    chunk.add(wines.next());
+
+                boolean firstChunk = first;
+                inFlight.add(CompletableFuture.supplyAsync(() -> format.chunk(chunk, firstChunk), executor));
+                first = false;
+
+                if(inFlight.size() >= maxInFlight)
+                    written += writeFully(channel, await(inFlight.poll()));
+            }
+
+            while(!inFlight.isEmpty())
+                written += writeFully(channel, await(inFlight.poll()));
+        } finally {
+            inFlight.forEach(future -> future.cancel(false));
+        }
+
+        written += writeFully(channel, format.footer());
+
+        return written;
+    }
+
+    // 문서 머리 / 청크 하나 / 문서 꼬리를 바이트로 만드는 방법 (chunk 는 여러 쓰레드에서 동시에 호출)
+    private interface ChunkFormat {
+        ByteBuffer header() throws IOException;
+
+        // 첫 청크가 아니면 앞 청크와의 구분자부터 씀
+        ByteBuffer chunk(List<Wine> chunk, boolean firstChunk);
+
+        ByteBuffer footer() throws IOException;
+    }
+
+    private static final class TextFormat implements ChunkFormat {
+        private final WineBuilder wineBuilder;
+
+        TextFormat(WineBuilder wineBuilder) {
+            this.wineBuilder = wineBuilder;
+        }
+
+        public ByteBuffer header() throws IOException {
+            StringBuilder header = new StringBuilder();
+            wineBuilder.writeProlog(header);
+            wineBuilder.writeListStart(header);
+            return encode(header);
+        }
+
+        public ByteBuffer chunk(List<Wine> chunk, boolean firstChunk) {
+            StringBuilder sb = new StringBuilder(chunk.size() * 64);
+            try {
+                for(int i = 0; i < chunk.size(); i++) {
+                    if(i > 0 || !firstChunk)
+                        wineBuilder.writeSeparator(sb);
+                    wineBuilder.writeHead(sb);
+                    wineBuilder.writeBody(chunk.get(i), sb);
+                    wineBuilder.writeFoot(sb);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return encode(sb);
+        }
+
+        public ByteBuffer footer() throws IOException {
+            StringBuilder footer = new StringBuilder();
+            wineBuilder.writeListEnd(footer);
+            return encode(footer);
+        }
+
+        private static ByteBuffer encode(CharSequence text) {
+            return StandardCharsets.UTF_8.encode(CharBuffer.wrap(text));
+        }
+    }
+
+    // 바이너리 포맷은 구분자 / 꼬리가 없고 레코드를 이어 붙이기만 함
+    private static final class BinaryFormat implements ChunkFormat {
+        private final WineBinaryFormat binaryFormat;
+
+        BinaryFormat(WineBinaryFormat binaryFormat) {
+            this.binaryFormat = binaryFormat;
+        }
+
+        public ByteBuffer header() {
+            ByteBuffer header = ByteBuffer.allocate(binaryFormat.headerBytes());
+            binaryFormat.writeHeader(header);
+            return header.flip();
+        }
+
+        public ByteBuffer chunk(List<Wine> chunk, boolean firstChunk) {
+            int capacity = 0;
+            for(Wine wine : chunk)
+                capacity = Math.addExact(capacity, binaryFormat.maxRecordBytes(wine));
+
+            ByteBuffer buffer = ByteBuffer.allocate(capacity);
+            for(Wine wine : chunk)
+                binaryFormat.writeRecord(wine, buffer);
+            return buffer.flip();
+        }
+
+        public ByteBuffer footer() {
+            return ByteBuffer.allocate(0);
+        }
+    }
+
+    private static ByteBuffer await(CompletableFuture<ByteBuffer> future) throws IOException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if(cause instanceof UncheckedIOException)
+                throw ((UncheckedIOException) cause).getCause();
+            if(cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+            if(cause instanceof Error)
+                throw (Error) cause;
+            throw e;
+        }
+    }
+
+    private static long writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        long written = 0;
+        while(buffer.hasRemaining())
+            written += channel.write(buffer);
+        return written;
+    }
+}
@@ -0,0 +1,261 @@
+package com.pattern.creational;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+/* 바이트 기반 Wine 직렬화 포맷
+ * WineBuilder 는 문자(Appendable) 기반이라 head() / body() / foot() 를 문자열로 만들 수 있어야 하지만
+ * 바이너리 포맷은 문자열로 만들 수 없으므로 WineBuilder 를 상속하지 않고 ByteBuffer 에 바로 쓰는 별도의 스트리밍 인터페이스를 둠
+ *  1. writeHeader : 파일 맨 앞에 한번 (headerBytes 바이트)
+ *  2. writeRecord : Wine 한 건 (out 에 maxRecordBytes(wine) 바이트 이상 남아 있어야 함)
+ * BatchDirector 는 WineBuilder 와 WineBinaryFormat 둘 다 받음
+ */
+interface WineBinaryFormat {
+    int headerBytes();
+
+    void writeHeader(ByteBuffer out);
+
+    void writeRecord(Wine wine, ByteBuffer out);
+
+    // 레코드 한 건이 차지할 수 있는 최대 바이트 (실제 크기 이상)
+    int maxRecordBytes(Wine wine);
+}
+
+/* 바이너리 Wine 포맷
+ * 텍스트 포맷(plain / JSON / XML)은 읽을 때 파싱 비용이 커서 카탈로그 로딩 시간이 대부분 여기에 쓰임
+ * 레코드 포맷 (파일 맨 앞에 MAGIC 4 바이트 + VERSION 1 바이트)
+ *  1. name : varint(UTF-8 바이트 길이) + UTF-8 바이트
+ *  2. year : zigzag varint
+ * 이름 앞에 길이가 있어서 읽는 쪽은 이름을 디코딩 하지 않고 건너뛸 수 있음
+ * 이름은 CharsetEncoder 하나로 한번만 인코딩하고(짝 없는 surrogate 는 '?' 로 대체) 인코딩된 길이로 길이 접두사를 씀
+ *  -> 길이 계산과 실제 인코딩이 서로 다른 규칙을 쓰다가 어긋나는 일이 없음
+ * 인코더와 임시 버퍼는 쓰레드마다 하나 (BatchDirector 에서 여러 쓰레드가 같은 인스턴스를 사용)
+ * 파일로 바로 쓸 때는 writeTo(Iterable, FileChannel) 사용
+ */
+final class BinaryWineBuilder implements WineBinaryFormat {
+
+    static final int MAGIC = 0x57494E45; // "WINE"
+    static final byte VERSION = 1;
+    static final int HEADER_BYTES = 5;
+
+    private static final int MAX_VARINT_BYTES = 5;
+
+    private static final ThreadLocal<NameEncoder> ENCODER = ThreadLocal.withInitial(NameEncoder::new);
+
+    @Override
+    public int headerBytes() {
+        return HEADER_BYTES;
+    }
+
+    @Override
+    public void writeHeader(ByteBuffer out) {
+        out.putInt(MAGIC);
+        out.put(VERSION);
+    }
+
+    @Override
+    public void writeRecord(Wine wine, ByteBuffer out) {
+        ByteBuffer name = ENCODER.get().encode(wine.getName());
+        putVarint(out, name.remaining());
+        out.put(name);
+        putVarint(out, (wine.getYear() << 1) ^ (wine.getYear() >> 31)); // zigzag
+    }
+
+    // varint 최대 5 바이트 * 2 + 이름 (char 하나는 UTF-8 로 최대 3 바이트, surrogate 쌍은 2 char 에 4 바이트)
+    @Override
+    public int maxRecordBytes(Wine wine) {
+        return MAX_VARINT_BYTES * 2 + wine.getName().length() * 3;
+    }
+
+    // 64KB 버퍼 하나를 재사용하면서 파일로 스트리밍 (문서 전체를 메모리에 만들지 않음)
+    static long writeTo(Iterable<Wine> wines, FileChannel channel) throws IOException {
+        BinaryWineBuilder format = new BinaryWineBuilder();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024);
+        long written = 0;
+
+        format.writeHeader(buffer);
+        for(Wine wine : wines) {
+            int required = format.maxRecordBytes(wine);
+            if(buffer.remaining() < required) {
+                written += flush(buffer, channel);
+                if(buffer.capacity() < required)
+                    buffer = ByteBuffer.allocate(required);
+            }
+            format.writeRecord(wine, buffer);
+        }
+        written += flush(buffer, channel);
+
+        return written;
+    }
+
+    private static long flush(ByteBuffer buffer, FileChannel channel) throws IOException {
+        buffer.flip();
+        long written = 0;
+        while(buffer.hasRemaining())
+            written += channel.write(buffer);
+        buffer.clear();
+        return written;
+    }
+
+    static void putVarint(ByteBuffer out, int value) {
+        while((value & ~0x7F) != 0) {
+            out.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+
+    // 쓰레드 별 UTF-8 인코더 + 재사용 버퍼 (encode 결과는 다음 encode 전까지만 유효)
+    private static final class NameEncoder {
+        private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE)
+                .replaceWith(new byte[]{'?'});
+        private ByteBuffer scratch = ByteBuffer.allocate(256);
+
+        ByteBuffer encode(String name) {
+            int required = name.length() * 3;
+            if(scratch.capacity() < required)
+                scratch = ByteBuffer.allocate(required);
+
+            scratch.clear();
+            encoder.reset();
+            CharBuffer in = CharBuffer.wrap(name);
+            CoderResult result = encoder.encode(in, scratch, true);
+            if(result.isUnderflow())
+                result = encoder.flush(scratch);
+            if(!result.isUnderflow())
+                throw new IllegalStateException("이름 인코딩 실패 -> " + result);
+            return scratch.flip();
+        }
+    }
+}
+
+/* 메모리 맵 Wine 리더
+ * FileChannel.map 으로 파일을 그대로 메모리에 매핑하고 레코드를 복사 없이 순회
+ * 레코드마다 객체를 만들지 않고 WineView 하나를 재사용(플라이웨이트) 하며 위치만 옮김
+ * name() / year() 는 호출될 때만 디코딩 -> 필요 없는 필드는 디코딩 비용이 없음
+ * 매핑 한개 기준이라 파일 크기는 2GB 까지
+ */
+class MappedWineReader {
+    private final ByteBuffer buffer;
+
+    private MappedWineReader(ByteBuffer buffer) {
+        this.buffer = buffer;
+
+        if(buffer.remaining() < BinaryWineBuilder.HEADER_BYTES
+                || buffer.getInt(0) != BinaryWineBuilder.MAGIC
+                || buffer.get(4) != BinaryWineBuilder.VERSION)
+            throw new IllegalArgumentException("Wine 바이너리 파일이 아님");
+    }
+
+    static MappedWineReader open(Path path) throws IOException {
+        try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()); // 채널을 닫아도 매핑은 유지
+            return new MappedWineReader(mapped);
+        }
+    }
+
+    // 이미 메모리에 있는 바이너리 (WineBinaryFormat 으로 ByteBuffer 에 쓴 결과 등)
+    static MappedWineReader wrap(ByteBuffer buffer) {
+        return new MappedWineReader(buffer.duplicate());
+    }
+
+    // consumer 에 넘어가는 WineView 는 같은 객체이므로 밖에 저장하지 말 것
+    public void forEach(Consumer<? super WineView> consumer) {
+        WineView view = new WineView(buffer);
+        int position = BinaryWineBuilder.HEADER_BYTES;
+        int limit = buffer.limit();
+
+        while(position < limit) {
+            position = view.moveTo(position);
+            consumer.accept(view);
+        }
+    }
+
+    public long count() {
+        long[] count = new long[1];
+        forEach(view -> count[0]++);
+        return count[0];
+    }
+}
+
+// 매핑된 버퍼 위의 레코드 하나를 가리키는 재사용 뷰
+class WineView {
+    private final ByteBuffer buffer;
+    private int nameOffset;
+    private int nameLength;
+    private int yearOffset;
+
+    WineView(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    // position 의 레코드를 가리키도록 옮기고 다음 레코드 위치를 반환 (year 는 디코딩 없이 건너뜀)
+    int moveTo(int position) {
+        int length = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buffer.get(position++);
+            length |= (b & 0x7F) << shift;
+            shift += 7;
+        } while(b < 0);
+
+        nameOffset = position;
+        nameLength = length;
+        yearOffset = position + length;
+
+        position = yearOffset;
+        while(buffer.get(position++) < 0) {}
+        return position;
+    }
+
+    public int nameLength() {
+        return nameLength;
+    }
+
+    // 이름을 String 으로 만들지 않고 비교
+    public boolean nameEquals(byte[] utf8) {
+        if(utf8.length != nameLength)
+            return false;
+        for(int i = 0; i < nameLength; i++) {
+            if(buffer.get(nameOffset + i) != utf8[i])
+                return false;
+        }
+        return true;
+    }
+
+    public String name() {
+        byte[] bytes = new byte[nameLength];
+        buffer.get(nameOffset, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public int year() {
+        int value = 0;
+        int shift = 0;
+        int position = yearOffset;
+        byte b;
+        do {
+            b = buffer.get(position++);
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while(b < 0);
+        return (value >>> 1) ^ -(value & 1); // zigzag
+    }
+
+    public Wine toWine() {
+        return new Wine(name(), year());
+    }
+}
@@ -1,5 +1,21 @@
 package com.pattern.creational;
 
+import com.pattern.processor.GenerateBuilder;
+import com.pattern.processor.Required;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
 /*
  * 복잡한 객체를 단계적으로 생성 -> 불변 객체 생성, 복잡한 초기화
  */
@@ -31,6 +47,22 @@ public class Builder {
                 .wine("스파클링")
                 .sake("간바레오또상")
                 .build();
+
+        // 재사용 빌더 + 호출자 소유 Drink 에 채우기 (빌더 / 제품 할당 없음)
+        Drink reused = new Drink();
+        AlcoholicDrinkByBuilder.pooled()
+                .soju("대선")
+                .beer("라거")
+                .buildInto(reused);
+        System.out.println("pooled = " + reused);
+
+        // 컴파일 타임 생성 빌더 (필수 필드 검사 + 불변 객체)
+        ImmutableAlcoholicDrink generated = ImmutableAlcoholicDrink.builder()
+                .soju("진로")
+                .whiskey("싱글몰트")
+                .beer("카스")
+                .build();
+        System.out.println("generated = " + generated);
         // 빌더 패턴 End
 
         // 디렉터 패턴 Start
@@ -51,6 +83,43 @@ public class Builder {
         Director director3 = new Director(wineBuilder3);
         String result3 = director3.build();
         System.out.println("XML = " + result3);
+
+        // 스트리밍 디렉터 -> 여러 Wine 을 하나의 출력에 바로 씀
+        List<Wine> wines = List.of(wine, new Wine("오퍼스 원", 18), new Wine("사시카이아", 19));
+        StringBuilder out = new StringBuilder();
+        try {
+            new Director(new JSONBuilder()).writeAll(wines, out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        System.out.println("JSON List = " + out);
+
+        // 병렬 배치 디렉터 -> 청크 단위로 ForkJoinPool 에서 직렬화하고 입력 순서대로 파일에 씀
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        try {
+            Path path = Files.createTempFile("wines", ".xml");
+            long bytes = new BatchDirector(new XMLBuilder(), pool, 1_000, 4)
+                    .write(IntStream.range(0, 10_000).mapToObj(i -> new Wine("와인-" + i, 1900 + i % 120)), path);
+            System.out.println("Batch XML = " + path + " (" + bytes + " bytes)");
+            Files.delete(path);
+
+            // 같은 배치 디렉터로 바이너리 포맷도 병렬 직렬화
+            Path batchBinary = Files.createTempFile("wines", ".bin");
+            new BatchDirector(new BinaryWineBuilder(), pool, 1_000, 4)
+                    .write(IntStream.range(0, 10_000).mapToObj(i -> new Wine("와인-" + i, 1900 + i % 120)), batchBinary);
+            System.out.println("Batch Binary = " + MappedWineReader.open(batchBinary).count() + " records");
+            batchBinary.toFile().deleteOnExit();
+
+            // 바이너리 포맷 + 메모리 맵 리더 (레코드마다 객체를 만들지 않고 WineView 하나를 재사용)
+            Path binary = Files.createTempFile("wines", ".bin");
+            try(FileChannel channel = FileChannel.open(binary, StandardOpenOption.WRITE)) {
+                BinaryWineBuilder.writeTo(wines, channel);
+            }
+            MappedWineReader.open(binary).forEach(view -> System.out.println("Binary = " + view.name() + " / " + view.year()));
+            binary.toFile().deleteOnExit(); // 매핑이 살아있는 동안은 지울 수 없는 OS 가 있음
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
         // 디렉터 패턴 End
     }
 }
@@ -144,6 +213,19 @@ class Drink {
         this.sake = sake;
     }
 
+    // buildInto 용 빈 객체 (호출자가 한번 만들어 두고 재사용)
+    public Drink() {}
+
+    // 빌더의 buildInto 에서만 호출 -> 새 객체 할당 없이 필드만 채움
+    Drink assign(String soju, String whiskey, String beer, String wine, String sake) {
+        this.soju = soju;
+        this.whiskey = whiskey;
+        this.beer = beer;
+        this.wine = wine;
+        this.sake = sake;
+        return this;
+    }
+
     @Override
     public String toString() {
         return "Drink{" +
@@ -198,6 +280,31 @@ class AlcoholicDrinkByBuilder {
     public Drink build() {
         return new Drink(soju, whiskey, beer, wine, sake);
     }
+
+    /* 재사용 빌더 (핫 패스에서 제품마다 빌더까지 새로 만드는 할당을 없앰)
+     *  1. reset() : 다섯 필드를 모두 비워 이전 제품의 값이 섞이지 않도록 함
+     *  2. pooled() : 쓰레드마다 하나씩 두는 빌더를 reset 해서 반환 (쓰레드간 공유 X 라 동기화 필요 없음)
+     *      2-1 같은 쓰레드에서 pooled() 를 다시 부르면 같은 빌더가 초기화 되므로 build 전에 중첩해서 쓰지 말 것
+     *  3. buildInto(Drink) : 호출자가 들고있는 Drink 에 값을 채움 -> 제품 할당까지 없앰
+     */
+    private static final ThreadLocal<AlcoholicDrinkByBuilder> POOL = ThreadLocal.withInitial(AlcoholicDrinkByBuilder::new);
+
+    public static AlcoholicDrinkByBuilder pooled() {
+        return POOL.get().reset();
+    }
+
+    public AlcoholicDrinkByBuilder reset() {
+        this.soju = null;
+        this.whiskey = null;
+        this.beer = null;
+        this.wine = null;
+        this.sake = null;
+        return this;
+    }
+
+    public Drink buildInto(Drink drink) {
+        return drink.assign(soju, whiskey, beer, wine, sake);
+    }
 }
 
 /* 심플 빌더 패턴 (이벡티브 자바) -> 빌더랑 별 차이 없지만 클래스가 구현할 클래스의 **정적내부클래스로 구현된다는 점이 다름**
@@ -226,6 +333,13 @@ class Whiskey {
             return this;
         }
 
+        // 빌더 재사용을 위한 초기화
+        Builder reset() {
+            this.name = null;
+            this.year = 0;
+            return this;
+        }
+
         // 대상 객체의 private 생성자를 호출하여 최종 인스턴스화
         public Whiskey build() {
             return new Whiskey(this); // 빌더 객체를 넘김
@@ -240,6 +354,25 @@ class Whiskey {
 
 }
 
+/* 컴파일 타임 생성 빌더 (builder-processor 서브 프로젝트의 @GenerateBuilder)
+ * 위의 세가지 방식은 필드를 빼먹어도 조용히 null 이 들어가는데
+ * 인터페이스만 정의하면 컴파일 시점에 ImmutableAlcoholicDrink 와 그 Builder 가 생성됨
+ *  1. 필드는 모두 final, hashCode 는 생성 시점에 한번만 계산
+ *  2. @Required 필드(soju, whiskey)가 없으면 build() 에서 IllegalStateException
+ *  3. 평범한 자바 코드가 생성되므로 런타임 리플렉션 비용 없음 (애노테이션도 SOURCE 보존)
+ */
+@GenerateBuilder(name = "ImmutableAlcoholicDrink")
+interface AlcoholicDrinkSpec {
+    // 필수 매개변수
+    @Required String soju();
+    @Required String whiskey();
+
+    // 선택 매개변수
+    String beer();
+    String wine();
+    String sake();
+}
+
 /* 디렉터 빌더 패턴 -> 일반적인 자바 데이터를 저장하고 있는 Data 객체를 Builder 인터페이스를 통해 적절한 문자열 포맷으로 변환함
  * 1. PlainTextBuilder : Data 인스턴스의 데이터들을 평이한 텍스트 형태로 만드는 API
  * 2. JSONBuilder : Data 인스턴스의 데이터들을 JSON 형태로 만드는 API
@@ -263,111 +396,203 @@ class Wine {
     }
 }
 
+/* 스트리밍 빌더
+ * head() / body() / foot() 가 각각 String 을 새로 만들고 Director 가 이를 다시 이어 붙이면 문서 하나에 중간 문자열이 여러개 생김
+ * 그래서 구현체는 호출자가 넘긴 Appendable(StringBuilder, Writer, ByteBuffer 어댑터 등)에 바로 쓰는 write* 메소드만 구현하고
+ * 기존 head() / body() / foot() 는 write* 를 StringBuilder 에 쓰는 방식으로 그대로 제공
+ * 또 Wine 을 인자로 받기 때문에 빌더 하나로 여러 Wine 을 연속해서 직렬화 할 수 있음 (List<Wine> / Stream<Wine>)
+ */
 abstract class WineBuilder {
     protected Wine wine;
 
+    // 스트리밍 전용 (Wine 은 write* 호출 때 넘김)
+    public WineBuilder() {}
+
     public WineBuilder(Wine wine) {
         this.wine = wine;
     }
 
-    public abstract String head();
-    public abstract String body();
-    public abstract String foot();
+    public String head() {
+        StringBuilder sb = new StringBuilder();
+        try {
+            writeProlog(sb);
+            writeHead(sb);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // StringBuilder 는 IOException 을 던지지 않음
+        }
+        return sb.toString();
+    }
 
+    public String body() {
+        StringBuilder sb = new StringBuilder();
+        try {
+            writeBody(wine, sb);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return sb.toString();
+    }
+
+    public String foot() {
+        StringBuilder sb = new StringBuilder();
+        try {
+            writeFoot(sb);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return sb.toString();
+    }
+
+    // 문서 전체에서 한번만 나오는 머리말 (XML 선언 등)
+    public void writeProlog(Appendable out) throws IOException {}
+
+    // Wine 한 건의 머리 / 몸통 / 꼬리
+    public abstract void writeHead(Appendable out) throws IOException;
+    public abstract void writeBody(Wine wine, Appendable out) throws IOException;
+    public abstract void writeFoot(Appendable out) throws IOException;
+
+    // 여러 건을 하나의 문서로 묶을 때의 시작 / 구분자 / 끝
+    public void writeListStart(Appendable out) throws IOException {}
+
+    public void writeSeparator(Appendable out) throws IOException {
+        out.append('\n');
+    }
+
+    public void writeListEnd(Appendable out) throws IOException {}
+
+    // Appendable 에는 append(int) 가 없어서 Integer.toString 할당 없이 숫자를 한 글자씩 씀
+    protected static void appendInt(Appendable out, int value) throws IOException {
+        if(value < 0) {
+            out.append('-');
+            if(value == Integer.MIN_VALUE) {
+                out.append("2147483648");
+                return;
+            }
+            value = -value;
+        }
+
+        int divisor = 1;
+        while(value / divisor >= 10)
+            divisor *= 10;
+
+        for(; divisor > 0; divisor /= 10)
+            out.append((char) ('0' + (value / divisor) % 10));
+    }
 }
 
 class PlainTextBuilder extends WineBuilder {
 
+    public PlainTextBuilder() {}
+
     public PlainTextBuilder(Wine wine) {
         super(wine);
     }
 
     @Override
-    public String head() {
-        return "";
-    }
+    public void writeHead(Appendable out) {}
 
     @Override
-    public String body() {
-        StringBuilder sb = new StringBuilder();
-
-        sb.append("Name : ");
-        sb.append(wine.getName());
-        sb.append("|| Year : ");
-        sb.append(wine.getYear());
-
-        return sb.toString();
+    public void writeBody(Wine wine, Appendable out) throws IOException {
+        out.append("Name : ");
+        out.append(wine.getName());
+        out.append("|| Year : ");
+        appendInt(out, wine.getYear());
     }
 
     @Override
-    public String foot() {
-        return "";
-    }
+    public void writeFoot(Appendable out) {}
 }
 
 class JSONBuilder extends WineBuilder {
 
+    // 필드 이름 구간은 미리 UTF-8 로 인코딩 해둠
+    private static final EncodedFragment NAME = EncodedFragment.of("\t\"Name\" : \"");
+    private static final EncodedFragment YEAR = EncodedFragment.of("\",\n\t\"Year\" : ");
+
+    public JSONBuilder() {}
 
     public JSONBuilder(Wine wine) {
         super(wine);
     }
 
     @Override
-    public String head() {
-        return "{\n";
+    public void writeHead(Appendable out) throws IOException {
+        out.append("{\n");
     }
 
     @Override
-    public String body() {
-        StringBuilder sb = new StringBuilder();
+    public void writeBody(Wine wine, Appendable out) throws IOException {
+        NAME.appendTo(out);
+        TextEscaper.JSON.escape(wine.getName(), out);
+        YEAR.appendTo(out);
+        appendInt(out, wine.getYear());
+    }
 
+    @Override
+    public void writeFoot(Appendable out) throws IOException {
+        out.append("\n}");
+    }
 
-        sb.append("\t\"Name\" : ");
-        sb.append("\"" + wine.getName() + "\",\n");
-        sb.append("\t\"Year\" : ");
-        sb.append(wine.getYear());
-        return sb.toString();
+    @Override
+    public void writeListStart(Appendable out) throws IOException {
+        out.append("[\n");
     }
 
     @Override
-    public String foot() {
-        return "\n}";
+    public void writeSeparator(Appendable out) throws IOException {
+        out.append(",\n");
+    }
+
+    @Override
+    public void writeListEnd(Appendable out) throws IOException {
+        out.append("\n]");
     }
 }
 
 class XMLBuilder extends WineBuilder {
 
+    private static final EncodedFragment NAME_OPEN = EncodedFragment.of("\t<NAME>");
+    private static final EncodedFragment NAME_CLOSE_YEAR_OPEN = EncodedFragment.of("</NAME>\n\t<YEAR>");
+    private static final EncodedFragment YEAR_CLOSE = EncodedFragment.of("</YEAR>");
+
+    public XMLBuilder() {}
+
     public XMLBuilder(Wine wine) {
         super(wine);
     }
 
     @Override
-    public String head() {
-        StringBuilder sb = new StringBuilder();
-
-        sb.append("<?xml version=\"1.0\" encoding=\"UTF-8\" ?>\n");
-        sb.append("<WINE>\n");
+    public void writeProlog(Appendable out) throws IOException {
+        out.append("<?xml version=\"1.0\" encoding=\"UTF-8\" ?>\n");
+    }
 
-        return sb.toString();
+    @Override
+    public void writeHead(Appendable out) throws IOException {
+        out.append("<WINE>\n");
     }
 
     @Override
-    public String body() {
-        StringBuilder sb = new StringBuilder();
+    public void writeBody(Wine wine, Appendable out) throws IOException {
+        NAME_OPEN.appendTo(out);
+        TextEscaper.XML.escape(wine.getName(), out);
+        NAME_CLOSE_YEAR_OPEN.appendTo(out);
+        appendInt(out, wine.getYear());
+        YEAR_CLOSE.appendTo(out);
+    }
 
-        sb.append("\t<NAME>");
-        sb.append(wine.getName());
-        sb.append("<NAME>");
-        sb.append("\n\t<YEAR>");
-        sb.append(wine.getYear());
-        sb.append("<YEAR>");
+    @Override
+    public void writeFoot(Appendable out) throws IOException {
+        out.append("\n</WINE>");
+    }
 
-        return sb.toString();
+    @Override
+    public void writeListStart(Appendable out) throws IOException {
+        out.append("<WINES>\n");
     }
 
     @Override
-    public String foot() {
-        return "\n</WINE>";
+    public void writeListEnd(Appendable out) throws IOException {
+        out.append("\n</WINES>");
     }
 }
 
@@ -388,4 +613,199 @@ class Director {
 
         return sb.toString();
     }
-}
\ No newline at end of file
+
+    // build() 와 같은 결과를 중간 문자열 없이 out 에 바로 씀
+    public void write(Appendable out) throws IOException {
+        wineBuilder.writeProlog(out);
+        writeOne(wineBuilder.wine, out);
+    }
+
+    // 여러 Wine 을 하나의 문서로 직렬화 (문서 전체 문자열을 만들지 않음)
+    public void writeAll(Iterable<Wine> wines, Appendable out) throws IOException {
+        wineBuilder.writeProlog(out);
+        wineBuilder.writeListStart(out);
+
+        boolean first = true;
+        for(Wine wine : wines) {
+            if(!first)
+                wineBuilder.writeSeparator(out);
+            writeOne(wine, out);
+            first = false;
+        }
+
+        wineBuilder.writeListEnd(out);
+    }
+
+    public void writeAll(Stream<Wine> wines, Appendable out) throws IOException {
+        writeAll((Iterable<Wine>) wines::iterator, out);
+    }
+
+    // ByteBuffer 에 UTF-8 로 바로 인코딩 (공간이 모자라면 BufferOverflowException)
+    public void writeAll(Iterable<Wine> wines, ByteBuffer out) throws IOException {
+        writeAll(wines, new ByteBufferAppendable(out));
+    }
+
+    private void writeOne(Wine wine, Appendable out) throws IOException {
+        wineBuilder.writeHead(out);
+        wineBuilder.writeBody(wine, out);
+        wineBuilder.writeFoot(out);
+    }
+}
+
+// ByteBuffer 를 Appendable 로 쓰기 위한 어댑터 (char 를 UTF-8 바이트로 바로 put, 중간 byte[] 없음)
+class ByteBufferAppendable implements Appendable {
+    private final ByteBuffer buffer;
+    private char highSurrogate;
+
+    ByteBufferAppendable(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    // 이미 인코딩된 바이트를 한번에 복사 (EncodedFragment)
+    void appendBytes(byte[] utf8) {
+        buffer.put(utf8);
+    }
+
+    @Override
+    public Appendable append(CharSequence csq) {
+        return append(csq, 0, csq.length());
+    }
+
+    @Override
+    public Appendable append(CharSequence csq, int start, int end) {
+        for(int i = start; i < end; i++)
+            append(csq.charAt(i));
+        return this;
+    }
+
+    @Override
+    public Appendable append(char c) {
+        if(highSurrogate != 0) {
+            char high = highSurrogate;
+            highSurrogate = 0;
+            if(Character.isLowSurrogate(c)) {
+                int codePoint = Character.toCodePoint(high, c);
+                buffer.put((byte) (0xF0 | (codePoint >> 18)));
+                buffer.put((byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+                buffer.put((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+                buffer.put((byte) (0x80 | (codePoint & 0x3F)));
+                return this;
+            }
+            buffer.put((byte) '?'); // 짝이 없는 surrogate
+        }
+
+        if(c < 0x80) {
+            buffer.put((byte) c);
+        } else if(c < 0x800) {
+            buffer.put((byte) (0xC0 | (c >> 6)));
+            buffer.put((byte) (0x80 | (c & 0x3F)));
+        } else if(Character.isHighSurrogate(c)) {
+            highSurrogate = c;
+        } else if(Character.isLowSurrogate(c)) {
+            buffer.put((byte) '?');
+        } else {
+            buffer.put((byte) (0xE0 | (c >> 12)));
+            buffer.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+            buffer.put((byte) (0x80 | (c & 0x3F)));
+        }
+        return this;
+    }
+}
+
+/* 테이블 기반 이스케이퍼
+ * 문자마다 치환 문자열을 들고 있는 ASCII 테이블을 두고 (null 이면 그대로 써도 되는 문자)
+ * 안전한 문자가 이어지는 구간은 append(csq, start, end) 로 한번에 복사하고 치환이 필요한 문자만 끊어서 씀
+ * 이스케이프 할 문자가 없는 일반적인 이름은 append 한번으로 끝남
+ */
+final class TextEscaper {
+
+    // JSON : " \ 와 제어문자(U+0000 ~ U+001F)
+    static final TextEscaper JSON = new TextEscaper(jsonTable());
+
+    // XML : & < > " ' 와 XML 1.0 에서 허용되지 않는 제어문자(탭 / 개행 / 캐리지리턴 제외)는 U+FFFD 로 대체
+    static final TextEscaper XML = new TextEscaper(xmlTable());
+
+    private final String[] replacements;
+
+    private TextEscaper(String[] replacements) {
+        this.replacements = replacements;
+    }
+
+    void escape(CharSequence text, Appendable out) throws IOException {
+        int runStart = 0;
+        int length = text.length();
+
+        for(int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            String replacement = c < replacements.length ? replacements[c] : null;
+            if(replacement == null)
+                continue;
+
+            if(i > runStart)
+                out.append(text, runStart, i);
+            out.append(replacement);
+            runStart = i + 1;
+        }
+
+        if(runStart == 0)
+            out.append(text);
+        else if(runStart < length)
+            out.append(text, runStart, length);
+    }
+
+    private static String[] jsonTable() {
+        String[] table = new String[128];
+        for(int c = 0; c < 0x20; c++)
+            table[c] = String.format("\\u%04x", c);
+        table['\b'] = "\\b";
+        table['\t'] = "\\t";
+        table['\n'] = "\\n";
+        table['\f'] = "\\f";
+        table['\r'] = "\\r";
+        table['"'] = "\\\"";
+        table['\\'] = "\\\\";
+        return table;
+    }
+
+    private static String[] xmlTable() {
+        String[] table = new String[128];
+        for(int c = 0; c < 0x20; c++)
+            table[c] = "\uFFFD";
+        table['\t'] = null;
+        table['\n'] = null;
+        table['\r'] = null;
+        table['&'] = "&amp;";
+        table['<'] = "&lt;";
+        table['>'] = "&gt;";
+        table['"'] = "&quot;";
+        table['\''] = "&apos;";
+        return table;
+    }
+}
+
+// 미리 UTF-8 로 인코딩 해둔 고정 문자열 (ByteBuffer 로 쓸 때는 인코딩 없이 바이트를 통째로 복사)
+final class EncodedFragment {
+    private final String text;
+    private final byte[] utf8;
+
+    private EncodedFragment(String text) {
+        this.text = text;
+        this.utf8 = text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    static EncodedFragment of(String text) {
+        return new EncodedFragment(text);
+    }
+
+    void appendTo(Appendable out) throws IOException {
+        if(out instanceof ByteBufferAppendable)
+            ((ByteBufferAppendable) out).appendBytes(utf8);
+        else
+            out.append(text);
+    }
+
+    @Override
+    public String toString() {
+        return text;
+    }
+}
@@ -1,5 +1,19 @@
 package com.pattern.creational;
 
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.ref.Cleaner;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
 /* 팩토리 메서드 패턴
  * 객체 생성 책임을 서브클래스에 위임 -> 객체 생성 과정 캡슐화
  *
@@ -32,12 +46,31 @@ public class FactoryMethod {
 
         Beer lager = factories[0].createOperation();
         Beer ale = factories[1].createOperation();
+
+        // 레지스트리 방식 -> 제품마다 공장 서브클래스를 만들지 않고 등록 시점에 생성자를 한번만 해석
+        BeerFactoryRegistry registry = new BeerFactoryRegistry()
+                .register("lager", Lager.class)
+                .register("ale", Ale::new);
+
+        BeerFactory aleFactory = registry.factory("ale"); // 조회는 한번만 하고 참조를 들고 사용
+        Beer ale2 = aleFactory.createOperation();
+        Beer lager2 = registry.factory(Lager.class).createOperation(); // Class 로 등록한 제품은 타입으로도 조회
+
+        // 풀링 모드 -> 비싼 setting() 을 미리 끝낸 객체를 빌려 쓰고 try-with-resources 로 반납
+        BeerPool lagerPool = factories[0].pooled(4, true);
+        try(BeerPool.Lease lease = lagerPool.borrow()) {
+            Beer pooledLager = lease.beer();
+        }
+        System.out.println(lagerPool.stats());
     }
 }
 
 // 맥주 추상화
 interface Beer {
     void setting();
+
+    // 풀에 돌려줄 때 호출 -> 사용 중에 바뀐 상태만 되돌림 (setting() 으로 만든 초기화 결과는 유지)
+    default void reset() {}
 }
 
 // 맥주 구현체
@@ -58,6 +91,11 @@ abstract class AbstractBeerFactory {
     // 펙토리 메소드 : 구체적인 객체 생성 종류는 각 서브 클래스에 위임
     // protected 이기 떄문에 외부에 노출이 안됨
     abstract protected Beer createBeer();
+
+    // 풀링 모드 (선택) -> setting() 까지 끝난 객체를 capacity 개 만들어 두고 빌려주고 돌려받음
+    BeerPool pooled(int capacity, boolean leakDetection) {
+        return new BeerPool(this::createOperation, capacity, leakDetection);
+    }
 }
 
 class LagerFactory extends AbstractBeerFactory {
@@ -73,4 +111,262 @@ class AleFactory extends AbstractBeerFactory {
     public Beer createBeer() {
         return new Ale();
     }
-}
\ No newline at end of file
+}
+
+/* 레지스트리 기반 팩토리 메서드 (서브클래스 폭발 단점 보완)
+ * 제품마다 AbstractBeerFactory 서브클래스를 만드는 대신 이름 / 타입으로 생성 함수를 등록
+ *  1. register(name, Class) : 등록 시점에 기본 생성자를 LambdaMetafactory 로 Supplier 로 바꿔둠 (이후 리플렉션 없음)
+ *  2. register(name, Supplier) : Lager::new 같은 생성자 참조를 그대로 등록
+ *  3. factory(name) / factory(Class, Class 로 등록한 경우) : 맵 조회는 여기서 한번만, 호출자는 받은 BeerFactory 를 들고 createOperation() 만 호출
+ * BeerFactory 는 record 로 정의 -> JIT(C2) 는 record 의 final 필드를 상수로 신뢰하기 때문에
+ * static final 로 들고 있는 BeerFactory 의 createOperation() 은 supplier 의 구체 타입이 확정되어 인라이닝 됨
+ * (한 호출 지점에서 여러 제품을 번갈아 만들면 어떤 방식이든 메가모픽 호출이 되는건 같음 -> FactoryMethodBenchmark 참고)
+ */
+final class BeerFactoryRegistry {
+    private final Map<String, BeerFactory> byName = new ConcurrentHashMap<>();
+    private final Map<Class<?>, BeerFactory> byType = new ConcurrentHashMap<>();
+
+    <T extends Beer> BeerFactoryRegistry register(String name, Class<T> type) {
+        return register(name, type, MethodHandles.lookup());
+    }
+
+    // 다른 패키지의 제품은 생성자에 접근 가능한 lookup 을 같이 넘김
+    <T extends Beer> BeerFactoryRegistry register(String name, Class<T> type, MethodHandles.Lookup lookup) {
+        return add(name, type, constructorSupplier(type, lookup));
+    }
+
+    BeerFactoryRegistry register(String name, Supplier<? extends Beer> supplier) {
+        return add(name, null, supplier);
+    }
+
+    BeerFactory factory(String name) {
+        BeerFactory factory = byName.get(name);
+        if(factory == null)
+            throw new IllegalArgumentException("등록되지 않은 맥주 -> " + name);
+        return factory;
+    }
+
+    BeerFactory factory(Class<? extends Beer> type) {
+        BeerFactory factory = byType.get(type);
+        if(factory == null)
+            throw new IllegalArgumentException("등록되지 않은 맥주 타입 -> " + type.getName());
+        return factory;
+    }
+
+    private BeerFactoryRegistry add(String name, Class<?> type, Supplier<? extends Beer> supplier) {
+        BeerFactory factory = new BeerFactory(name, supplier);
+        if(byName.putIfAbsent(name, factory) != null)
+            throw new IllegalStateException("이미 등록된 맥주 -> " + name);
+        if(type != null)
+            byType.putIfAbsent(type, factory);
+        return this;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Supplier<T> constructorSupplier(Class<T> type, MethodHandles.Lookup lookup) {
+        try {
+            MethodHandle constructor = lookup.findConstructor(type, MethodType.methodType(void.class));
+            CallSite site = LambdaMetafactory.metafactory(
+                    lookup,
+                    "get",
+                    MethodType.methodType(Supplier.class),
+                    MethodType.methodType(Object.class),
+                    constructor,
+                    MethodType.methodType(type));
+            return (Supplier<T>) site.getTarget().invokeExact();
+        } catch (Throwable e) {
+            throw new IllegalArgumentException("기본 생성자로 생성할 수 없는 타입 -> " + type.getName(), e);
+        }
+    }
+}
+
+// 제품 하나의 생성 함수 (record -> final 필드가 JIT 에서 상수로 취급됨)
+record BeerFactory(String name, Supplier<? extends Beer> supplier) {
+
+    // AbstractBeerFactory.createOperation() 과 같은 전처리 / 후처리 템플릿
+    Beer createOperation() {
+        Beer beer = supplier.get();
+        beer.setting();
+        return beer;
+    }
+}
+
+/* 객체 풀링 (AbstractBeerFactory.pooled)
+ * setting() 초기화가 비싸고 제품이 잠깐 쓰고 버려지는 경우 매번 할당 + setting() 하는 대신 미리 만들어 둔 객체를 재사용
+ *  1. 빌리기 : 슬롯 배열을 쓰레드마다 다른 위치부터 훑으면서 CAS(객체 -> null) 로 꺼냄 (락 없음)
+ *      1-1 비어 있으면 새로 생성 (풀이 모자라도 호출자는 막히지 않음)
+ *  2. 돌려주기 : Beer.reset() 후 빈 슬롯에 CAS(null -> 객체), 풀이 가득 찼으면 버림 -> 풀 크기는 capacity 를 넘지 않음
+ *  3. 누수 감지 : Lease 가 반납 없이 GC 되면 Cleaner 가 leaks 를 올리고 경고 출력 (Lease 당 Cleaner 등록 비용이 있어 선택)
+ *  4. 지표 : borrows / creations(풀 미스) / returns / discards / leaks / 빌려간 수 / 사용률
+ */
+final class BeerPool {
+
+    private static final Cleaner CLEANER = Cleaner.create();
+
+    private final Supplier<Beer> factory;
+    private final AtomicReferenceArray<Beer> slots;
+    private final boolean leakDetection;
+
+    private final LongAdder borrows = new LongAdder();
+    private final LongAdder creations = new LongAdder();
+    private final LongAdder returns = new LongAdder();
+    private final LongAdder discards = new LongAdder();
+    private final LongAdder leaks = new LongAdder();
+    private final AtomicInteger outstanding = new AtomicInteger();
+
+    BeerPool(Supplier<Beer> factory, int capacity, boolean leakDetection) {
+        if(capacity <= 0)
+            throw new IllegalArgumentException("capacity 는 1 이상 -> " + capacity);
+
+        this.factory = factory;
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.leakDetection = leakDetection;
+
+        // 미리 setting() 까지 끝낸 객체로 채움
+        for(int i = 0; i < capacity; i++)
+            slots.set(i, factory.get());
+    }
+
+    Lease borrow() {
+        borrows.increment();
+        outstanding.incrementAndGet();
+
+        Beer beer = poll();
+        if(beer == null) {
+            creations.increment();
+            beer = factory.get();
+        }
+        return new Lease(this, beer);
+    }
+
+    Stats stats() {
+        return new Stats(borrows.sum(), creations.sum(), returns.sum(), discards.sum(), leaks.sum(),
+                outstanding.get(), slots.length());
+    }
+
+    private Beer poll() {
+        int capacity = slots.length();
+        int start = probe(capacity);
+        for(int i = 0; i < capacity; i++) {
+            int index = (start + i) % capacity;
+            Beer beer = slots.get(index);
+            if(beer != null && slots.compareAndSet(index, beer, null))
+                return beer;
+        }
+        return null;
+    }
+
+    private void release(Beer beer) {
+        returns.increment();
+        outstanding.decrementAndGet();
+        beer.reset();
+
+        int capacity = slots.length();
+        int start = probe(capacity);
+        for(int i = 0; i < capacity; i++) {
+            int index = (start + i) % capacity;
+            if(slots.get(index) == null && slots.compareAndSet(index, null, beer))
+                return;
+        }
+        discards.increment();
+    }
+
+    // 쓰레드마다 다른 슬롯부터 훑어서 CAS 경합을 분산 (int 로 자르면 음수가 될 수 있으므로 floorMod)
+    private static int probe(int capacity) {
+        return Math.floorMod((Thread.currentThread().getId() * 0x9E3779B9L) >>> 16, capacity);
+    }
+
+    // 빌린 객체 (try-with-resources 로 반납)
+    static final class Lease implements AutoCloseable {
+        private final BeerPool pool;
+        private final Beer beer;
+        private final LeakState state;
+        private final Cleaner.Cleanable cleanable;
+        private final AtomicBoolean returned = new AtomicBoolean();
+
+        private Lease(BeerPool pool, Beer beer) {
+            this.pool = pool;
+            this.beer = beer;
+            if(pool.leakDetection) {
+                this.state = new LeakState(pool.leaks, pool.outstanding, beer.getClass().getName());
+                this.cleanable = CLEANER.register(this, state);
+            } else {
+                this.state = null;
+                this.cleanable = null;
+            }
+        }
+
+        Beer beer() {
+            if(returned.get())
+                throw new IllegalStateException("이미 반납된 객체");
+            return beer;
+        }
+
+        @Override
+        public void close() {
+            // 여러 쓰레드가 동시에 close 해도 한번만 반납
+            if(!returned.compareAndSet(false, true))
+                return;
+
+            if(cleanable != null) {
+                state.returned = true;
+                cleanable.clean(); // Cleaner 등록 해제
+            }
+            pool.release(beer);
+        }
+    }
+
+    // Cleaner 액션 (Lease 를 참조하면 GC 되지 않으므로 필요한 것만 따로 들고 있음)
+    private static final class LeakState implements Runnable {
+        private final LongAdder leaks;
+        private final AtomicInteger outstanding;
+        private final String type;
+        volatile boolean returned;
+
+        LeakState(LongAdder leaks, AtomicInteger outstanding, String type) {
+            this.leaks = leaks;
+            this.outstanding = outstanding;
+            this.type = type;
+        }
+
+        public void run() {
+            if(returned)
+                return;
+            leaks.increment();
+            outstanding.decrementAndGet();
+            System.out.println("BeerPool 누수 감지 -> 반납되지 않은 " + type);
+        }
+    }
+
+    static final class Stats {
+        final long borrows;
+        final long creations;
+        final long returns;
+        final long discards;
+        final long leaks;
+        final int outstanding;
+        final int capacity;
+
+        Stats(long borrows, long creations, long returns, long discards, long leaks, int outstanding, int capacity) {
+            this.borrows = borrows;
+            this.creations = creations;
+            this.returns = returns;
+            this.discards = discards;
+            this.leaks = leaks;
+            this.outstanding = outstanding;
+            this.capacity = capacity;
+        }
+
+        // 빌려간 객체 수 / 풀 크기
+        double utilization() {
+            return (double) outstanding / capacity;
+        }
+
+        @Override
+        public String toString() {
+            return "Stats{borrows=" + borrows + ", creations=" + creations + ", returns=" + returns
+                    + ", discards=" + discards + ", leaks=" + leaks + ", outstanding=" + outstanding
+                    + ", capacity=" + capacity + ", utilization=" + String.format("%.2f", utilization()) + '}';
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.pattern.creational;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Objects;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/* 락 없는 지연 초기화 참조(LazyRef)
+ * ThreadSafeInitialization 은 초기화가 끝난 뒤에도 getInstance() 마다 synchronized 비용을 계속 지불하고
+ * LazyInitialization 은 check-then-act 가 동기화 되어 있지 않아 객체가 여러개 생길 수 있음
+ * LazyRef 는 VarHandle 의 acquire / release 와 CAS 로 두 문제를 같이 해결
+ *  1. 읽기 경로 : getAcquire 한번 -> 이미 초기화 되었으면 바로 반환 (모니터 없음)
+ *  2. 최초 초기화 : null -> INITIALIZING 으로 CAS 에 성공한 **단 하나의 쓰레드만** supplier 를 호출
+ *  3. CAS 에 실패한 쓰레드는 onSpinWait 으로 기다리다가 setRelease 로 발행된 인스턴스를 받아감
+ *      3-1 생성이 오래 걸리면(백그라운드 워밍업 중 등) 잠깐 spin 한 뒤부터는 parkNanos 로 쉬면서 기다림 (코어를 태우지 않도록)
+ *  4. supplier 가 예외를 던지면(checked 예외 포함) 상태를 null 로 되돌려 다음 호출이 다시 초기화를 시도
+ *  5. 초기화에 성공하면 supplier 를 놓아줌 -> supplier 가 붙잡고 있던 객체가 참조의 수명 동안 남아 있지 않음
+ * release 로 쓰고 acquire 로 읽기 때문에 생성자 안에서 쓴 필드까지 모두 보인 상태로 발행됨 (반쯤 생성된 객체 노출 X)
+ */
+public final class LazyRef<T> {
+
+    // 다른 쓰레드가 생성중임을 나타내는 표식
+    private static final Object INITIALIZING = new Object();
+
+    private static final VarHandle VALUE;
+
+    private static final int SPINS_BEFORE_PARK = 128;
+    private static final long PARK_NANOS = 50_000;
+
+    static {
+        try {
+            VALUE = MethodHandles.lookup().findVarHandle(LazyRef.class, "value", Object.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    // 초기화에 성공하면 null (생성 권한을 가진 쓰레드만 읽고 씀, VALUE 의 CAS / release 가 가시성을 보장)
+    private Supplier<? extends T> supplier;
+
+    // null : 미초기화 / INITIALIZING : 생성중 / 그 외 : 발행된 인스턴스
+    private Object value;
+
+    private LazyRef(Supplier<? extends T> supplier) {
+        this.supplier = Objects.requireNonNull(supplier, "supplier");
+    }
+
+    public static <T> LazyRef<T> of(Supplier<? extends T> supplier) {
+        return new LazyRef<>(supplier);
+    }
+
+    @SuppressWarnings("unchecked")
+    public T get() {
+        Object v = VALUE.getAcquire(this);
+        if(v != null && v != INITIALIZING)
+            return (T) v;
+
+        return initialize();
+    }
+
+    public boolean isInitialized() {
+        Object v = VALUE.getAcquire(this);
+        return v != null && v != INITIALIZING;
+    }
+
+    // 생성 중이거나 이미 초기화 됨 (생성이 실패하면 다시 false)
+    public boolean isStarted() {
+        return VALUE.getAcquire(this) != null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private T initialize() {
+        int spins = 0;
+        while(true) {
+            Object v = VALUE.getAcquire(this);
+
+            if(v == null) {
+                // 생성 권한을 CAS 로 선점한 쓰레드만 supplier 호출
+                if(VALUE.compareAndSet(this, null, INITIALIZING)) {
+                    T created;
+                    try {
+                        created = Objects.requireNonNull(supplier.get(), "supplier 가 null 을 반환");
+                    } catch (Throwable e) {
+                        // checked 예외를 몰래 던지는 supplier 도 있으므로 무엇이 오든 상태를 되돌려야 기다리는 쓰레드가 멈추지 않음
+                        VALUE.setRelease(this, null);
+                        throw e;
+                    }
+                    VALUE.setRelease(this, created);
+                    supplier = null;   // 이후로는 아무도 생성 권한을 얻지 못하므로 다시 읽히지 않음
+                    return created;
+                }
+            } else if(v != INITIALIZING) {
+                return (T) v;
+            } else if(++spins < SPINS_BEFORE_PARK) {
+                Thread.onSpinWait();
+            } else {
+                LockSupport.parkNanos(PARK_NANOS);
+            }
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.pattern.creational;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/* LazyRef 스트레스 하네스 (jcstress 스타일)
+ * 새 참조 객체를 batch 개 만들고 모든 쓰레드가 같은 순서로 동시에 get() 을 호출해 최초 접근 경쟁을 일으킴
+ * 참조 하나당 경쟁 한번 -> batch * rounds 만큼의 경쟁을 반복하면서
+ *  1. supplier 가 두번 이상 호출된 참조의 수 (중복 생성)
+ *  2. 쓰레드들이 서로 다른 인스턴스를 받아간 참조의 수 (서로 다른 인스턴스 관측)
+ * 를 센다. 비교를 위해 LazyInitialization 과 같은 방식의 RacyRef 도 같이 돌려서 하네스가 실제로 경쟁을 잡아내는지 확인
+ *
+ * 실행 -> java com.pattern.creational.LazyRefStress [threads] [rounds] [batch]
+ */
+public class LazyRefStress {
+
+    public static void main(String[] args) throws InterruptedException {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : Math.max(2, Runtime.getRuntime().availableProcessors());
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+        int batch = args.length > 2 ? Integer.parseInt(args[2]) : 10_000;
+
+        System.out.println("threads=" + threads + " races=" + (long) rounds * batch);
+
+        Result racy = run(threads, rounds, batch, RacyRef::new);
+        System.out.println("RacyRef (LazyInitialization 방식) -> " + racy);
+
+        Result lazyRef = run(threads, rounds, batch, supplier -> LazyRef.of(supplier)::get);
+        System.out.println("LazyRef                          -> " + lazyRef);
+
+        if(lazyRef.duplicateCreations > 0 || lazyRef.refsWithDistinctInstances > 0)
+            throw new IllegalStateException("LazyRef 에서 중복 생성 발견 " + lazyRef);
+    }
+
+    // 참조 구현체를 바꿔 끼우기 위한 팩토리 (supplier 를 받아 get() 이 가능한 참조를 반환)
+    interface RefFactory {
+        Supplier<Object> create(Supplier<Object> supplier);
+    }
+
+    static Result run(int threads, int rounds, int batch, RefFactory factory) throws InterruptedException {
+        ExecutorService executorService = Executors.newFixedThreadPool(threads);
+        AtomicLong duplicateCreations = new AtomicLong();
+        AtomicLong refsWithDistinctInstances = new AtomicLong();
+
+        try {
+            for(int round = 0; round < rounds; round++) {
+                AtomicInteger[] created = new AtomicInteger[batch];
+                Supplier<Object>[] refs = newRefs(batch, created, factory);
+                Object[][] observed = new Object[threads][batch];
+
+                CountDownLatch start = new CountDownLatch(1);
+                CountDownLatch done = new CountDownLatch(threads);
+
+                for(int t = 0; t < threads; t++) {
+                    final Object[] seen = observed[t];
+                    executorService.submit(() -> {
+                        try {
+                            start.await();
+                            for(int i = 0; i < batch; i++)
+                                seen[i] = refs[i].get();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        } finally {
+                            done.countDown();
+                        }
+                    });
+                }
+
+                start.countDown();
+                done.await(); // 모든 쓰레드가 끝날때 까지 대기 한 뒤에 결과를 읽음
+
+                for(int i = 0; i < batch; i++) {
+                    if(created[i].get() > 1)
+                        duplicateCreations.incrementAndGet();
+
+                    for(int t = 1; t < threads; t++) {
+                        if(observed[t][i] != observed[0][i]) {
+                            refsWithDistinctInstances.incrementAndGet();
+                            break;
+                        }
+                    }
+                }
+            }
+        } finally {
+            executorService.shutdown();
+            executorService.awaitTermination(1, TimeUnit.MINUTES);
+        }
+
+        return new Result((long) rounds * batch, duplicateCreations.get(), refsWithDistinctInstances.get());
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Supplier<Object>[] newRefs(int batch, AtomicInteger[] created, RefFactory factory) {
+        Supplier<Object>[] refs = new Supplier[batch];
+        for(int i = 0; i < batch; i++) {
+            AtomicInteger counter = new AtomicInteger();
+            created[i] = counter;
+            refs[i] = factory.create(() -> {
+                counter.incrementAndGet();
+                return new Object();
+            });
+        }
+        return refs;
+    }
+
+    static class Result {
+        final long races;
+        final long duplicateCreations;
+        final long refsWithDistinctInstances;
+
+        Result(long races, long duplicateCreations, long refsWithDistinctInstances) {
+            this.races = races;
+            this.duplicateCreations = duplicateCreations;
+            this.refsWithDistinctInstances = refsWithDistinctInstances;
+        }
+
+        @Override
+        public String toString() {
+            return "races=" + races + ", 중복 생성=" + duplicateCreations + ", 서로 다른 인스턴스를 본 참조=" + refsWithDistinctInstances;
+        }
+    }
+
+    // LazyInitialization.getInstance() 와 같은 동기화 없는 check-then-act
+    static class RacyRef implements Supplier<Object> {
+        private final Supplier<Object> supplier;
+        private Object value;
+
+        RacyRef(Supplier<Object> supplier) {
+            this.supplier = supplier;
+        }
+
+        public Object get() {
+            if(value == null)
+                value = supplier.get();
+
+            return value;
+        }
+    }
+}
@@ -3,6 +3,7 @@ package com.pattern.creational;
 import lombok.Getter;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 /*
  * 객체를 하나로 제한 -> 설정 관리, 로깅, 캐싱
@@ -25,7 +26,7 @@ import java.util.concurrent.Executors;
  * -> 많은 테스트 프레임워크가 Mock 객체를 생성 할 때 상속에 의존하기 때문에 싱글톤의 클라이언트 코드를 테스트하기 어려움.
  */
 public class Singleton {
-    public static void main(String[] args) {
+    public static void main(String[] args) throws InterruptedException {
         // 싱글톤 객체를 담을 배열
         LazyInitialization[] lazyInitializations = new LazyInitialization[10];
 
@@ -40,8 +41,9 @@ public class Singleton {
             });
         }
 
-        // 종료
+        // 종료 (모든 작업이 끝날 때 까지 기다려야 배열이 다 채워진 상태로 출력됨)
         executorService.shutdown();
+        executorService.awaitTermination(1, TimeUnit.MINUTES);
 
         // 싱글톤 객체 주소를 출력 해볼까
         for(LazyInitialization lazyInitialization : lazyInitializations) {
@@ -77,6 +79,7 @@ public class Singleton {
 
         // 종료
         executorService1.shutdown();
+        executorService1.awaitTermination(1, TimeUnit.MINUTES);
 
         // 싱글톤 객체 주소를 출력 해볼까
         for(ThreadSafeInitialization threadSafeInitialization : threadSafeInitializations) {
@@ -106,6 +109,7 @@ public class Singleton {
  *  5. Double-Checked Locking
  *  6. Bill Pugh Solution
  *  7. Enum 이용
+ *  8. LazyRef 이용 (VarHandle CAS)
  */
 
 
@@ -275,3 +279,20 @@ enum SingletonEnum {
     }
 
 }
+
+/* 8. LazyRef(VarHandle acquire / release + CAS)
+ * Thread safe initialization 처럼 매 호출마다 synchronized 를 걸지 않고 Double-Checked Locking 처럼 volatile + 모니터 조합도 아님
+ * 최초 경쟁에서 CAS 에 이긴 쓰레드 하나만 생성하고 나머지는 발행될 때 까지 스핀 대기
+ * 초기화 이후 읽기 경로는 getAcquire 한번 뿐이라 모니터 비용이 없음
+ * Bill Pugh Solution 과 달리 클래스 단위가 아닌 **필드 단위**로 지연 초기화가 가능해서 싱글톤이 아닌 곳(프록시 등)에도 재사용 가능
+ * 중복 생성이 없는지는 LazyRefStress 하네스로 확인
+ */
+class LazyRefInitialization {
+    private static final LazyRef<LazyRefInitialization> INSTANCE = LazyRef.of(LazyRefInitialization::new);
+
+    private LazyRefInitialization() {}
+
+    public static LazyRefInitialization getInstance() {
+        return INSTANCE.get();
+    }
+}
@@ -0,0 +1,156 @@
+package com.pattern.structural;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/* 접근 권한 판단기 (ProtectionProxy 용, 정책 교체 가능 + 판단 결과 캐시)
+ * 보호 프록시는 모든 호출마다 권한을 확인하므로 매번 규칙 목록을 훑으면 호출 비용이 규칙 수에 비례하게 됨
+ *  1. (주체, 작업) -> 허용 / 거부 를 ConcurrentHashMap 두 단계(주체 -> 작업 -> 결과)에 캐시 -> 히트 경로는 락 없이 get 두번, 키 객체도 만들지 않음
+ *  2. 정책(AccessPolicy)과 캐시를 Snapshot 하나로 묶어 AtomicReference 에 둠
+ *      2-1 reload(policy) 는 새 Snapshot 으로 한번에 교체 -> 호출자를 막지 않고, 교체 후 호출은 이전 정책의 캐시 결과를 볼 수 없음
+ *      2-2 교체 직전에 읽은 Snapshot 으로 판단 중인 호출은 이전 정책으로 끝나고, 그 결과는 버려지는 이전 캐시에만 들어감
+ *  3. 크기 제한 : 캐시된 결과가 maximumSize 를 넘으면 같은 정책의 빈 Snapshot 으로 교체 (제거 순서를 관리하지 않음, 다시 채워지는 비용만 있음)
+ *      3-1 교체는 compareAndSet 이므로 그 사이에 reload 된 정책을 되돌리지 않음
+ *  4. evaluations : 캐시 미스로 정책을 실제로 평가한 횟수
+ */
+final class AccessGuard {
+
+    private final int maximumSize;
+    private final AtomicReference<Snapshot> snapshot;
+    private final LongAdder evaluations = new LongAdder();
+
+    AccessGuard(AccessPolicy policy, int maximumSize) {
+        if(maximumSize <= 0)
+            throw new IllegalArgumentException("maximumSize 는 0 보다 커야 함 -> " + maximumSize);
+        this.maximumSize = maximumSize;
+        this.snapshot = new AtomicReference<>(new Snapshot(policy));
+    }
+
+    boolean check(String principal, String operation) {
+        Snapshot current = snapshot.get();
+        ConcurrentHashMap<String, Boolean> byOperation = current.decisions.get(principal);
+        if(byOperation != null) {
+            Boolean decision = byOperation.get(operation);
+            if(decision != null)
+                return decision;
+        }
+        return evaluate(current, principal, operation);
+    }
+
+    // 정책 교체 (캐시도 함께 비워짐)
+    void reload(AccessPolicy policy) {
+        snapshot.set(new Snapshot(policy));
+    }
+
+    AccessPolicy policy() {
+        return snapshot.get().policy;
+    }
+
+    long evaluations() {
+        return evaluations.sum();
+    }
+
+    private boolean evaluate(Snapshot current, String principal, String operation) {
+        evaluations.increment();
+        boolean decision = current.policy.evaluate(principal, operation);
+
+        ConcurrentHashMap<String, Boolean> byOperation = current.decisions.computeIfAbsent(principal, p -> new ConcurrentHashMap<>());
+        if(byOperation.putIfAbsent(operation, decision) == null && current.size.incrementAndGet() > maximumSize)
+            snapshot.compareAndSet(current, new Snapshot(current.policy));
+        return decision;
+    }
+
+    private static final class Snapshot {
+        final AccessPolicy policy;
+        final ConcurrentHashMap<String, ConcurrentHashMap<String, Boolean>> decisions = new ConcurrentHashMap<>();
+        final AtomicInteger size = new AtomicInteger();
+
+        Snapshot(AccessPolicy policy) {
+            this.policy = Objects.requireNonNull(policy, "policy");
+        }
+    }
+}
+
+/* 접근 정책 (불변 규칙 목록)
+ *  1. 규칙 : (주체, 작업, 허용 / 거부), ANY("*") 는 모든 주체 / 작업과 일치
+ *  2. 일치하는 거부 규칙이 하나라도 있으면 거부, 없고 일치하는 허용 규칙이 있으면 허용, 아무것도 일치하지 않으면 기본값(거부)
+ *      2-1 규칙 순서와 상관 없이 결과가 같으므로 정책 파일을 합치거나 나눠도 의미가 바뀌지 않음
+ *  3. 불변이라 여러 쓰레드가 동시에 평가해도 되고, 바꿀 때는 새 정책을 만들어 AccessGuard.reload 로 교체
+ */
+final class AccessPolicy {
+    static final String ANY = "*";
+
+    private final List<Rule> rules;
+    private final boolean allowByDefault;
+
+    private AccessPolicy(List<Rule> rules, boolean allowByDefault) {
+        this.rules = List.copyOf(rules);
+        this.allowByDefault = allowByDefault;
+    }
+
+    static Builder builder() {
+        return new Builder();
+    }
+
+    static AccessPolicy denyAll() {
+        return builder().build();
+    }
+
+    boolean evaluate(String principal, String operation) {
+        boolean allowed = false;
+        for(Rule rule : rules) {
+            if(!rule.matches(principal, operation))
+                continue;
+            if(!rule.allow())
+                return false;
+            allowed = true;
+        }
+        return allowed || allowByDefault;
+    }
+
+    int size() {
+        return rules.size();
+    }
+
+    record Rule(String principal, String operation, boolean allow) {
+        Rule {
+            Objects.requireNonNull(principal, "principal");
+            Objects.requireNonNull(operation, "operation");
+        }
+
+        boolean matches(String principal, String operation) {
+            return (this.principal.equals(ANY) || this.principal.equals(principal))
+                    && (this.operation.equals(ANY) || this.operation.equals(operation));
+        }
+    }
+
+    static final class Builder {
+        private final List<Rule> rules = new ArrayList<>();
+        private boolean allowByDefault;
+
+        Builder allow(String principal, String operation) {
+            rules.add(new Rule(principal, operation, true));
+            return this;
+        }
+
+        Builder deny(String principal, String operation) {
+            rules.add(new Rule(principal, operation, false));
+            return this;
+        }
+
+        // 일치하는 규칙이 없을 때 허용 (기본은 거부)
+        Builder allowByDefault() {
+            this.allowByDefault = true;
+            return this;
+        }
+
+        AccessPolicy build() {
+            return new AccessPolicy(rules, allowByDefault);
+        }
+    }
+}
@@ -0,0 +1,314 @@
+package com.pattern.structural;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/* 캐싱 프록시(Caching Proxy)
+ * 느린 백엔드(RealSubject) 앞에서 결과를 캐시하여 반복 호출과 동시에 몰리는 호출(stampede)을 막음
+ *  1. 조회 : ConcurrentHashMap.get 한번으로 끝나는 lock-free 히트 경로
+ *  2. 만료(TTL) : 적재된 지 expireAfterWrite 가 지난 값은 미스로 취급하고 다시 적재
+ *  3. single-flight : 같은 키의 동시 미스는 inFlight 에 먼저 등록한 쓰레드 하나만 subject 를 호출하고 나머지는 그 결과를 기다림
+ *      3-1 적재가 실패하면 기다리던 쓰레드 모두 같은 예외를 받고, 다음 요청은 다시 적재 시도
+ *  4. stale-while-revalidate : 적재된 지 refreshAfterWrite 가 지났지만 아직 만료 전이면 이전 값을 바로 반환하고 refreshExecutor 에서 갱신
+ *      4-1 갱신도 single-flight 이고(실행을 맡기기 전에 inFlight 에 등록), 갱신이 실패하면 만료될 때까지 이전 값을 계속 사용
+ *      4-2 refreshExecutor 가 거부하면 호출한 쓰레드에서 갱신 (등록한 future 를 다른 미스 요청이 기다리고 있을 수 있음)
+ *  3, 4 모두 inFlight 를 차지한 뒤 캐시를 다시 보고, 요청이 읽은 뒤에 다른 적재가 새 값을 넣었으면 subject 를 호출하지 않고 그 값을 사용
+ *  5. 크기 제한 : maximumSize 를 넘으면 FlyweightPool 과 같은 CLOCK(second-chance) 알고리즘으로 제거
+ *      5-1 키마다 Entry 객체 하나를 두고 값만 교체하므로 갱신해도 CLOCK 큐가 늘어나지 않음 (만료된 값도 교체 / 제거 될 때까지 크기에 포함)
+ *  6. 지표 : hit / stale hit / miss / 적재 횟수 / 적재 실패 / 적재 시간 / eviction 을 LongAdder 로 집계
+ * null 은 캐시하지 않음 (subject 가 null 을 반환하면 NullPointerException)
+ */
+final class CachingProxy<K, V> implements IValueSubject<K, V> {
+
+    private final IValueSubject<K, V> subject;
+    private final long expireNanos;    // 0 -> 만료 없음
+    private final long refreshNanos;   // 0 -> 백그라운드 갱신 없음
+    private final long maximumSize;    // 0 -> 크기 제한 없음
+    private final Executor refreshExecutor;
+
+    private final ConcurrentHashMap<K, Entry<K, V>> map = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Entry<K, V>> clock = new ConcurrentLinkedQueue<>();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder staleHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder loadFailures = new LongAdder();
+    private final LongAdder loadNanos = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    private CachingProxy(Builder builder, IValueSubject<K, V> subject) {
+        this.subject = Objects.requireNonNull(subject, "subject");
+        this.expireNanos = builder.expireNanos;
+        this.refreshNanos = builder.refreshNanos;
+        this.maximumSize = builder.maximumSize;
+        this.refreshExecutor = builder.refreshExecutor;
+    }
+
+    static Builder builder() {
+        return new Builder();
+    }
+
+    public V request(K key) {
+        Entry<K, V> entry = map.get(key);
+        Loaded<V> seen = null;
+        if(entry != null) {
+            seen = entry.loaded;
+            long age = System.nanoTime() - seen.loadedAt;
+            if(expireNanos == 0 || age < expireNanos) {
+                entry.markReferenced();
+                if(refreshNanos > 0 && age >= refreshNanos) {
+                    staleHits.increment();
+                    refreshAsync(key, seen);
+                } else {
+                    hits.increment();
+                }
+                return seen.value;
+            }
+        }
+
+        misses.increment();
+        return await(load(key, seen));
+    }
+
+    public long size() {
+        return map.size();
+    }
+
+    public Stats stats() {
+        return new Stats(hits.sum(), staleHits.sum(), misses.sum(), loads.sum(), loadFailures.sum(), loadNanos.sum(), evictions.sum(), map.size());
+    }
+
+    // single-flight : inFlight 에 먼저 등록한 쓰레드만 적재, 나머지는 등록된 future 를 그대로 반환
+    private CompletableFuture<V> load(K key, Loaded<V> seen) {
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlight.putIfAbsent(key, mine);
+        if(running != null)
+            return running;
+
+        fill(key, seen, mine);
+        return mine;
+    }
+
+    // 실행을 맡기기 전에 inFlight 에 등록 -> 갱신이 큐에서 기다리는 동안 들어온 stale hit 는 작업을 더 만들지 않음
+    private void refreshAsync(K key, Loaded<V> seen) {
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        if(inFlight.putIfAbsent(key, mine) != null)
+            return;
+
+        try {
+            refreshExecutor.execute(() -> fill(key, seen, mine));
+        } catch (RejectedExecutionException e) {
+            fill(key, seen, mine);
+        }
+    }
+
+    // inFlight 에 mine 을 등록한 쓰레드만 호출
+    // 다른 적재가 캐시에 넣고 inFlight 에서 빠진 직후에 미스 / stale hit 를 본 요청은 putIfAbsent 를 이길 수 있으므로,
+    // 캐시를 다시 보고 seen 이후에 들어온 만료 전 값이 있으면 subject 를 호출하지 않음
+    private void fill(K key, Loaded<V> seen, CompletableFuture<V> mine) {
+        try {
+            Entry<K, V> entry = map.get(key);
+            Loaded<V> current = entry == null ? null : entry.loaded;
+            if(current != null && current != seen && (expireNanos == 0 || System.nanoTime() - current.loadedAt < expireNanos)) {
+                mine.complete(current.value);
+                return;
+            }
+
+            long start = System.nanoTime();
+            try {
+                V value = Objects.requireNonNull(subject.request(key), "subject 가 null 을 반환");
+                // 캐시에 먼저 넣고 inFlight 에서 빼야 그 사이에 들어온 요청이 다시 적재하지 않음
+                store(key, value);
+                mine.complete(value);
+            } catch (RuntimeException | Error e) {
+                loadFailures.increment();
+                mine.completeExceptionally(e);
+            } finally {
+                loads.increment();
+                loadNanos.add(System.nanoTime() - start);
+            }
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    private void store(K key, V value) {
+        Loaded<V> loaded = new Loaded<>(value, System.nanoTime());
+        Entry<K, V> entry = map.get(key);
+        if(entry != null) {
+            entry.loaded = loaded;
+            return;
+        }
+
+        entry = new Entry<>(key, loaded);
+        Entry<K, V> previous = map.putIfAbsent(key, entry);
+        if(previous != null) {
+            previous.loaded = loaded;
+        } else if(maximumSize > 0) {
+            clock.offer(entry);
+            evictIfNeeded();
+        }
+    }
+
+    // CLOCK : 큐 앞에서 꺼내 최근에 참조 되었으면 표시만 지우고 뒤로 보내고(second chance), 아니면 제거
+    private void evictIfNeeded() {
+        if(map.size() <= maximumSize)
+            return;
+
+        evictionLock.lock();
+        try {
+            while(map.size() > maximumSize) {
+                Entry<K, V> entry = clock.poll();
+                if(entry == null)
+                    break;
+
+                if(map.get(entry.key) != entry)
+                    continue; // 이미 제거된 엔트리
+
+                if(entry.referenced) {
+                    entry.referenced = false;
+                    clock.offer(entry);
+                } else if(map.remove(entry.key, entry)) {
+                    evictions.increment();
+                }
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    // CompletableFuture 가 감싼 subject 의 예외를 그대로 다시 던짐
+    private static <V> V await(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if(cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+            if(cause instanceof Error)
+                throw (Error) cause;
+            throw e;
+        }
+    }
+
+    static final class Builder {
+        private long expireNanos;
+        private long refreshNanos;
+        private long maximumSize;
+        private Executor refreshExecutor = ForkJoinPool.commonPool();
+
+        Builder expireAfterWrite(Duration ttl) {
+            this.expireNanos = positive(ttl, "expireAfterWrite");
+            return this;
+        }
+
+        // 이 시간이 지나면 이전 값을 반환하면서 백그라운드에서 갱신 (expireAfterWrite 보다 짧아야 의미가 있음)
+        Builder refreshAfterWrite(Duration refresh) {
+            this.refreshNanos = positive(refresh, "refreshAfterWrite");
+            return this;
+        }
+
+        // 0 이하 -> 크기 제한 없음
+        Builder maximumSize(long maximumSize) {
+            this.maximumSize = Math.max(0, maximumSize);
+            return this;
+        }
+
+        // subject 가 블로킹 I/O 라면 commonPool 대신 전용 executor 를 넘길 것
+        Builder refreshExecutor(Executor refreshExecutor) {
+            this.refreshExecutor = Objects.requireNonNull(refreshExecutor, "refreshExecutor");
+            return this;
+        }
+
+        <K, V> CachingProxy<K, V> build(IValueSubject<K, V> subject) {
+            if(expireNanos > 0 && refreshNanos >= expireNanos)
+                throw new IllegalArgumentException("refreshAfterWrite 는 expireAfterWrite 보다 짧아야 함");
+            return new CachingProxy<>(this, subject);
+        }
+
+        private static long positive(Duration duration, String name) {
+            if(duration.isNegative() || duration.isZero())
+                throw new IllegalArgumentException(name + " 는 0 보다 커야 함 -> " + duration);
+            return duration.toNanos();
+        }
+    }
+
+    private static final class Entry<K, V> {
+        final K key;
+        volatile Loaded<V> loaded;
+        volatile boolean referenced;
+
+        Entry(K key, Loaded<V> loaded) {
+            this.key = key;
+            this.loaded = loaded;
+        }
+
+        // 이미 표시 되어 있으면 쓰지 않음 (히트 때마다 캐시 라인을 더럽히지 않도록)
+        void markReferenced() {
+            if(!referenced)
+                referenced = true;
+        }
+    }
+
+    // 값과 적재 시각을 한번에 교체하기 위한 불변 묶음
+    private static final class Loaded<V> {
+        final V value;
+        final long loadedAt;
+
+        Loaded(V value, long loadedAt) {
+            this.value = value;
+            this.loadedAt = loadedAt;
+        }
+    }
+
+    static final class Stats {
+        final long hits;
+        final long staleHits;
+        final long misses;
+        final long loads;
+        final long loadFailures;
+        final long loadNanos;
+        final long evictions;
+        final long size;
+
+        Stats(long hits, long staleHits, long misses, long loads, long loadFailures, long loadNanos, long evictions, long size) {
+            this.hits = hits;
+            this.staleHits = staleHits;
+            this.misses = misses;
+            this.loads = loads;
+            this.loadFailures = loadFailures;
+            this.loadNanos = loadNanos;
+            this.evictions = evictions;
+            this.size = size;
+        }
+
+        // stale hit 도 호출한 쓰레드는 기다리지 않았으므로 히트로 계산
+        double hitRate() {
+            long requests = hits + staleHits + misses;
+            return requests == 0 ? 1.0 : (double) (hits + staleHits) / requests;
+        }
+
+        double averageLoadMillis() {
+            return loads == 0 ? 0.0 : loadNanos / 1_000_000.0 / loads;
+        }
+
+        @Override
+        public String toString() {
+            return "Stats{hits=" + hits + ", staleHits=" + staleHits + ", misses=" + misses + ", loads=" + loads
+                    + ", loadFailures=" + loadFailures + ", averageLoadMillis=" + String.format("%.2f", averageLoadMillis())
+                    + ", evictions=" + evictions + ", size=" + size + ", hitRate=" + String.format("%.2f", hitRate()) + '}';
+        }
+    }
+}
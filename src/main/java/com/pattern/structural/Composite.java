@@ -1,9 +1,24 @@
 package com.pattern.structural;
 
-import lombok.Getter;
-
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
+import java.util.function.LongBinaryOperator;
+import java.util.function.ToLongFunction;
 
 /* 복합체 패턴(Composite Pattern) - 트리 구조 처리
  * 쉽계 얘기해서 OS 디렉토리 파일 시스템 구조라고 보면됨.
@@ -24,7 +39,14 @@ public class Composite {
 
         // 3. 최상위 복합체에 개체들을 등록
         compositeC1.add(leaf1);
-        compositeC2.add(compositeC2);
+        compositeC1.add(compositeC2);
+
+        // 자기 자신(또는 조상)을 자식으로 넣으면 순환이 생겨 순회가 끝나지 않으므로 등록 시점에 거부
+        try {
+            compositeC2.add(compositeC2);
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+        }
 
         // 4. 서브 복합체에 저장할 Leaf 생성
         Leaf leaf2 = new Leaf();
@@ -38,6 +60,22 @@ public class Composite {
 
         // 6. 최상위 복합체에 모든 자식 노드들을 출력
         compositeC1.operation();
+
+        // 7. 병렬 순회 / 집계 (Leaf 수 세기)
+        compositeC1.parallelOperation();
+        int leafCount = compositeC1.reduce(0, leaf -> 1, Integer::sum);
+        System.out.println("leafCount = " + leafCount);
+
+        // 집계 캐시 : 처음 한번만 계산하고 이후에는 캐시 값, add 후에는 바뀐 경로만 다시 계산
+        System.out.println("cached leafCount = " + compositeC1.aggregate(CompositeAggregate.LEAF_COUNT));
+        compositeC2.add(new Leaf());
+        System.out.println("cached leafCount (add 후) = " + compositeC1.aggregate(CompositeAggregate.LEAF_COUNT)
+                + ", nodeCount = " + compositeC1.aggregate(CompositeAggregate.NODE_COUNT));
+
+        // 8. 읽기 전용 배열 형태로 얼려서 순회 / 서브트리 집계
+        FrozenComposite frozen = compositeC1.freeze();
+        frozen.operation();
+        System.out.println("frozen nodes = " + frozen.nodeCount() + ", leaves = " + frozen.leafCount() + ", sub tree leaves = " + frozen.leafCount(2));
     }
 }
 
@@ -66,28 +104,661 @@ class Leaf implements Component {
     }
 }
 
-@Getter
 class CompositeC implements Component {
 
     // Leaf 와 Composite 객체 모두 저장하여 관리하는 내부 리스트
+    // (리스트를 직접 고치면 부모 포인터와 집계 캐시가 갱신되지 않으므로 add / remove 만 사용)
     List<Component> componentList = new ArrayList<>();
 
+    // 부모 복합체 (루트면 null) -> 복합체는 한 부모에만 등록 가능 (Leaf 는 여러 곳에 공유 가능)
+    CompositeC parent;
+
+    // 집계 캐시 : aggregates[id] 에 CompositeAggregate 값, validAggregates 의 id 번째 비트가 1 이면 유효
+    long[] aggregates = new long[0];
+    long validAggregates;
+
+    // 노드 하나만 처리 (복합체는 자기 자신만 출력, 자식 순회는 CompositeWalker 가 담당)
+    static final Consumer<Component> NODE_OPERATION = component -> {
+        if(component instanceof CompositeC)
+            ((CompositeC) component).nodeOperation();
+        else
+            component.operation();
+    };
+
+    // 읽기 전용 뷰 (고치려면 add / remove 를 써야 부모 포인터와 집계 캐시가 같이 갱신됨)
+    public List<Component> getComponentList() {
+        return Collections.unmodifiableList(componentList);
+    }
+
+    public CompositeC getParent() {
+        return parent;
+    }
+
     public void add(Component component) {
+        if(component instanceof CompositeC) {
+            CompositeC composite = (CompositeC) component;
+
+            // 순환 검사 : 넣으려는 복합체가 나 자신이거나 내 조상이면 순환이 생김 (부모 포인터로 올라가므로 O(깊이))
+            // 자식이 없는 복합체는 조상일 수 없으므로 건너뜀 (새 복합체를 붙여가며 트리를 만들 때는 O(1))
+            if(composite == this || (!composite.componentList.isEmpty() && isDescendantOf(composite)))
+                throw new IllegalArgumentException("순환 참조 -> " + component + " 아래에 " + this + " 가 있음");
+            if(composite.parent != null)
+                throw new IllegalArgumentException(component + " 는 이미 " + composite.parent + " 에 등록되어 있음");
+
+            composite.parent = this;
+        }
+
         componentList.add(component);
+        invalidate();
     }
 
     public void remove(Component component) {
-        componentList.remove(component);
+        if(!componentList.remove(component))
+            return;
+
+        if(component instanceof CompositeC)
+            ((CompositeC) component).parent = null;
+        invalidate();
     }
 
+    private boolean isDescendantOf(CompositeC composite) {
+        for(CompositeC ancestor = parent; ancestor != null; ancestor = ancestor.parent) {
+            if(ancestor == composite)
+                return true;
+        }
+        return false;
+    }
+
+    // 나부터 루트까지 집계 캐시를 무효화 (이미 무효인 노드를 만나면 그 위도 무효이므로 멈춤)
+    // Leaf 의 값이 바뀌었을 때는 Leaf 를 담고 있는 복합체에서 직접 호출
+    public void invalidate() {
+        for(CompositeC node = this; node != null && node.validAggregates != 0; node = node.parent)
+            node.validAggregates = 0;
+    }
+
+    // 캐시된 집계 값 (바뀐 곳이 없으면 O(1))
+    public long aggregate(CompositeAggregate aggregate) {
+        return aggregate.get(this);
+    }
+
+    // 내부 리스트를 순회하여 단일 Leaf 이면 값을 출력하고 또 다른 서브 복합 객체이면 다시 그 내부를 순회
+    // 재귀 대신 명시적 스택으로 순회하기 때문에 깊이가 수백만인 트리도 StackOverflowError 없이 동작
     public void operation() {
+        CompositeWalker.UNBOUNDED.walk(this, NODE_OPERATION);
+    }
+
+    // 깊이 제한을 건 순회 (잘못된 트리는 제한에 걸리자마자 예외)
+    public void operation(CompositeWalker walker) {
+        walker.walk(this, NODE_OPERATION);
+    }
+
+    void nodeOperation() {
         System.out.println(this + " call");
+    }
+
+    // 모든 노드의 operation 을 ForkJoinPool 에서 병렬로 실행 (실행 순서는 보장하지 않음)
+    // 작업이 ParallelComposite.MAX_DEPTH 만큼 겹치면 그 아래는 CompositeWalker 로 순회하므로 깊은 트리도 스택이 넘치지 않음
+    public void parallelOperation() {
+        ParallelComposite.forEach(this, NODE_OPERATION, ForkJoinPool.commonPool(), ParallelComposite.DEFAULT_THRESHOLD);
+    }
+
+    // 모든 Leaf 를 mapper 로 변환해 combiner 로 합침 (Stream.reduce 와 같이 identity 는 항등원, combiner 는 결합법칙을 만족해야 함)
+    // 깊은 트리 처리는 parallelOperation 과 같음
+    public <R> R reduce(R identity, Function<Leaf, R> mapper, BinaryOperator<R> combiner) {
+        return ParallelComposite.reduce(this, identity, mapper, combiner, ForkJoinPool.commonPool(), ParallelComposite.DEFAULT_THRESHOLD);
+    }
+
+    // 현재 트리 모양을 배열 기반의 읽기 전용 형태로 복사 (이후 원본을 바꿔도 반영되지 않음)
+    public FrozenComposite freeze() {
+        return FrozenComposite.of(this);
+    }
+
+}
+
+/* 복합체 집계 캐시 (개수, 크기, 비용 등)
+ * 집계를 할 때마다 서브트리 전체를 다시 순회하는 대신 복합체마다 값을 캐시하고, 바뀐 노드에서 루트까지의 경로만 무효화
+ *  1. value : 노드 하나의 값 (복합체는 자식을 뺀 자기 자신의 값), combiner : 값을 합치는 함수 (결합법칙 + identity 는 항등원)
+ *      1-1 복합체의 값 = combine(value(자신), 자식1 값, 자식2 값, ...)
+ *  2. add / remove -> 부모 포인터를 따라 루트까지 유효 비트를 지움 O(깊이), 이미 지워진 노드에서 멈춤
+ *  3. 조회 -> 유효하면 캐시 값 그대로 O(1), 무효면 무효인 서브 복합체만 다시 계산 (유효한 자식은 캐시 값 사용)
+ *      3-1 깊은 트리에서도 스택이 넘치지 않도록 명시적 스택으로 후위 계산
+ * 유효 비트를 long 하나로 관리하므로 집계 종류는 최대 64개 (static 상수로 만들어 두고 재사용)
+ * CompositeC 와 마찬가지로 쓰레드 안전하지 않음 (조회도 캐시를 쓰므로 여러 쓰레드가 쓰려면 외부에서 동기화)
+ */
+final class CompositeAggregate {
+    private static final AtomicInteger IDS = new AtomicInteger();
+
+    static final CompositeAggregate NODE_COUNT = sum(component -> 1);
+    static final CompositeAggregate LEAF_COUNT = sum(component -> component instanceof CompositeC ? 0 : 1);
+
+    private final int id;
+    private final long identity;
+    private final ToLongFunction<Component> value;
+    private final LongBinaryOperator combiner;
+
+    private CompositeAggregate(int id, long identity, ToLongFunction<Component> value, LongBinaryOperator combiner) {
+        this.id = id;
+        this.identity = identity;
+        this.value = value;
+        this.combiner = combiner;
+    }
+
+    static CompositeAggregate of(long identity, ToLongFunction<Component> value, LongBinaryOperator combiner) {
+        int id = IDS.getAndIncrement();
+        if(id >= Long.SIZE)
+            throw new IllegalStateException("집계는 최대 " + Long.SIZE + " 개까지 만들 수 있음");
+        return new CompositeAggregate(id, identity, value, combiner);
+    }
+
+    static CompositeAggregate sum(ToLongFunction<Component> value) {
+        return of(0, value, Long::sum);
+    }
+
+    long get(CompositeC root) {
+        if(isValid(root))
+            return root.aggregates[id];
+
+        // 무효인 복합체만 스택에 쌓음, 자식을 모두 본 복합체는 (value(자신) + 자식 값) 으로 계산하고 pop
+        // componentList 를 직접 고쳐 생긴 순환은 스택에 이미 있는 복합체를 다시 만나는 것으로 잡아냄
+        Set<CompositeC> onStack = Collections.newSetFromMap(new IdentityHashMap<>());
+        Deque<Frame> stack = new ArrayDeque<>();
+        onStack.add(root);
+        stack.push(new Frame(root));
+
+        while(!stack.isEmpty()) {
+            Frame frame = stack.peek();
+            List<Component> children = frame.composite.componentList;
+
+            CompositeC dirty = null;
+            while(dirty == null && frame.next < children.size()) {
+                Component child = children.get(frame.next++);
+                if(child instanceof CompositeC && !isValid((CompositeC) child))
+                    dirty = (CompositeC) child;
+            }
+
+            if(dirty != null) {
+                if(!onStack.add(dirty))
+                    throw new IllegalStateException("순환 참조 발견 -> " + frame.composite + " 의 자식 " + dirty);
+                stack.push(new Frame(dirty));
+            } else {
+                store(frame.composite, compute(frame.composite));
+                onStack.remove(frame.composite);
+                stack.pop();
+            }
+        }
+        return root.aggregates[id];
+    }
+
+    private long compute(CompositeC composite) {
+        long result = combiner.applyAsLong(identity, value.applyAsLong(composite));
+        for(Component child : composite.componentList) {
+            long childValue = child instanceof CompositeC ? ((CompositeC) child).aggregates[id] : value.applyAsLong(child);
+            result = combiner.applyAsLong(result, childValue);
+        }
+        return result;
+    }
+
+    private boolean isValid(CompositeC composite) {
+        return (composite.validAggregates & (1L << id)) != 0;
+    }
+
+    private void store(CompositeC composite, long result) {
+        if(composite.aggregates.length <= id)
+            composite.aggregates = Arrays.copyOf(composite.aggregates, id + 1);
+        composite.aggregates[id] = result;
+        composite.validAggregates |= 1L << id;
+    }
+
+    private static final class Frame {
+        final CompositeC composite;
+        int next;
+
+        Frame(CompositeC composite) {
+            this.composite = composite;
+        }
+    }
+}
+
+/* 반복(iterative) 순회 엔진
+ * CompositeC.operation() 을 재귀로 구현하면 트리 깊이 만큼 호출 스택이 쌓여 깊은 트리나 순환이 있는 트리에서 StackOverflowError
+ *  1. 재귀 대신 (복합체, 다음 자식 위치) 프레임을 명시적 스택(ArrayDeque)에 쌓아서 전위 순회 -> 깊이는 힙 크기에만 제한
+ *  2. 현재 경로에 있는 복합체를 identity 집합으로 들고 있다가 다시 나오면 순환으로 보고 바로 예외
+ *      2-1 add() 가 복합체를 한 부모에만 붙이므로 순환은 같은 패키지에서 componentList 를 직접 고쳤을 때만 생김 (외부에는 읽기 전용 뷰만 공개)
+ *      2-2 Leaf 는 여러 부모에 공유될 수 있지만 자식이 없으므로 경로에 올리지 않음
+ *  3. maxDepth 를 넘으면 바로 예외 -> 잘못된 간선이 있어도 쓰레드가 죽지 않고 빨리 실패
+ */
+final class CompositeWalker {
+    static final CompositeWalker UNBOUNDED = new CompositeWalker(Integer.MAX_VALUE);
+
+    private final int maxDepth;
+
+    CompositeWalker(int maxDepth) {
+        if(maxDepth <= 0)
+            throw new IllegalArgumentException("maxDepth 는 1 이상 -> " + maxDepth);
+        this.maxDepth = maxDepth;
+    }
+
+    // 전위 순회로 모든 노드를 visitor 에 넘김 (루트 복합체의 깊이가 1)
+    void walk(Component root, Consumer<Component> visitor) {
+        walk(root, visitor, composite -> {});
+    }
+
+    // visitor 는 노드에 들어갈 때, exit 는 복합체의 자식을 모두 처리하고 나올 때 호출 (후위 처리용)
+    void walk(Component root, Consumer<Component> visitor, Consumer<CompositeC> exit) {
+        visitor.accept(root);
+        if(!(root instanceof CompositeC))
+            return;
+
+        Set<CompositeC> onPath = Collections.newSetFromMap(new IdentityHashMap<>());
+        Deque<Frame> stack = new ArrayDeque<>();
+        push(stack, onPath, (CompositeC) root);
+
+        while(!stack.isEmpty()) {
+            Frame frame = stack.peek();
+            if(frame.next == frame.composite.componentList.size()) {
+                stack.pop();
+                onPath.remove(frame.composite);
+                exit.accept(frame.composite);
+                continue;
+            }
+
+            Component child = frame.composite.componentList.get(frame.next++);
+            if(child instanceof CompositeC) {
+                if(onPath.contains(child))
+                    throw new IllegalStateException("순환 참조 발견 -> " + frame.composite + " 의 자식 " + child);
+
+                visitor.accept(child);
+                push(stack, onPath, (CompositeC) child);
+            } else {
+                visitor.accept(child);
+            }
+        }
+    }
+
+    private void push(Deque<Frame> stack, Set<CompositeC> onPath, CompositeC composite) {
+        if(stack.size() >= maxDepth)
+            throw new IllegalStateException("최대 깊이 초과 -> " + maxDepth);
+
+        onPath.add(composite);
+        stack.push(new Frame(composite));
+    }
+
+    private static final class Frame {
+        final CompositeC composite;
+        int next;
+
+        Frame(CompositeC composite) {
+            this.composite = composite;
+        }
+    }
+}
+
+/* 얼린(frozen) 복합체 - 배열 기반(structure-of-arrays) 표현
+ * CompositeC 는 노드마다 객체 + ArrayList + Object[] 를 가지고 있어 큰 트리를 순회하면 포인터를 계속 따라가며 캐시 미스가 남
+ * 읽기 위주의 큰 트리는 한번 얼려서 전위 순서(pre-order)의 int 배열로 펼쳐 두고 배열을 앞에서부터 훑기만 함
+ *  1. 노드 번호 = 전위 순회 순서 (루트가 0) -> 복합체의 첫 자식은 항상 node + 1
+ *  2. subtreeSize[node] : 자기 자신을 포함한 서브트리 노드 수 -> 다음 형제는 node + subtreeSize[node], 서브트리 건너뛰기도 한번의 덧셈
+ *  3. kinds[node] : LEAF / COMPOSITE, childCount[node] : 직계 자식 수
+ *  4. leafOffset[node] : node 앞에 나온 Leaf 수 -> Leaf 는 leaves[leafOffset[node]] 에 있고 (side table)
+ *      서브트리의 Leaf 는 leaves 의 [leafOffset[node], leafOffset[node + subtreeSize[node]]) 연속 구간 -> 서브트리 집계가 구간 순회 / 누적합이면 O(1)
+ * 여러 복합체에 공유된 Leaf 는 나온 횟수만큼 leaves 에 들어감, 얼린 뒤에는 수정 불가 (원본 CompositeC 를 고치고 다시 freeze)
+ */
+final class FrozenComposite implements Component {
+    static final byte LEAF = 0;
+    static final byte COMPOSITE = 1;
+
+    private final byte[] kinds;
+    private final int[] subtreeSize;
+    private final int[] childCount;
+    private final int[] leafOffset;   // 길이 = 노드 수 + 1 (마지막 칸이 전체 Leaf 수)
+    private final Component[] leaves;
+
+    private FrozenComposite(byte[] kinds, int[] subtreeSize, int[] childCount, int[] leafOffset, Component[] leaves) {
+        this.kinds = kinds;
+        this.subtreeSize = subtreeSize;
+        this.childCount = childCount;
+        this.leafOffset = leafOffset;
+        this.leaves = leaves;
+    }
+
+    // CompositeWalker 로 두번 순회 (1. 크기 세기 2. 배열 채우기) -> 순환이 있으면 IllegalStateException
+    static FrozenComposite of(Component root) {
+        int[] count = new int[2];
+        CompositeWalker.UNBOUNDED.walk(root, component -> {
+            count[0]++;
+            if(!(component instanceof CompositeC))
+                count[1]++;
+        });
+
+        Filler filler = new Filler(count[0], count[1]);
+        CompositeWalker.UNBOUNDED.walk(root, filler::enter, filler::exit);
+        filler.leafOffset[count[0]] = filler.nextLeaf;
+
+        return new FrozenComposite(filler.kinds, filler.subtreeSize, filler.childCount, filler.leafOffset, filler.leaves);
+    }
+
+    // 두번째 순회에서 전위 순서대로 배열을 채움
+    private static final class Filler {
+        final byte[] kinds;
+        final int[] subtreeSize;
+        final int[] childCount;
+        final int[] leafOffset;
+        final Component[] leaves;
+
+        int nextNode;
+        int nextLeaf;
+
+        // 아직 닫히지 않은 복합체 번호 스택 (깊이만큼만 씀)
+        int[] open = new int[16];
+        int top;
+
+        Filler(int nodes, int leafCount) {
+            kinds = new byte[nodes];
+            subtreeSize = new int[nodes];
+            childCount = new int[nodes];
+            leafOffset = new int[nodes + 1];
+            leaves = new Component[leafCount];
+        }
+
+        void enter(Component component) {
+            int node = nextNode++;
+            leafOffset[node] = nextLeaf;
+            if(top > 0)
+                childCount[open[top - 1]]++;
+
+            if(component instanceof CompositeC) {
+                kinds[node] = COMPOSITE;
+                if(top == open.length)
+                    open = Arrays.copyOf(open, top * 2);
+                open[top++] = node;
+            } else {
+                kinds[node] = LEAF;
+                subtreeSize[node] = 1;
+                leaves[nextLeaf++] = component;
+            }
+        }
+
+        void exit(CompositeC composite) {
+            int node = open[--top];
+            subtreeSize[node] = nextNode - node;
+        }
+    }
+
+    int nodeCount() {
+        return kinds.length;
+    }
+
+    int leafCount() {
+        return leaves.length;
+    }
+
+    boolean isLeaf(int node) {
+        return kinds[node] == LEAF;
+    }
+
+    int subtreeSize(int node) {
+        return subtreeSize[node];
+    }
+
+    int childCount(int node) {
+        return childCount[node];
+    }
+
+    // node 가 Leaf 일 때만 사용
+    Component leaf(int node) {
+        return leaves[leafOffset[node]];
+    }
+
+    // node 서브트리의 Leaf 수 (O(1))
+    int leafCount(int node) {
+        return leafOffset[node + subtreeSize[node]] - leafOffset[node];
+    }
+
+    // 직계 자식 번호를 순서대로 넘김 (다음 형제 = 현재 + subtreeSize)
+    void forEachChild(int node, IntConsumer action) {
+        int end = node + subtreeSize[node];
+        for(int child = node + 1; child < end; child += subtreeSize[child])
+            action.accept(child);
+    }
+
+    // 전위 순회, visitor 가 false 를 반환하면 그 서브트리는 건너뜀
+    void walk(IntPredicate visitor) {
+        walk(0, visitor);
+    }
+
+    void walk(int node, IntPredicate visitor) {
+        int end = node + subtreeSize[node];
+        while(node < end)
+            node += visitor.test(node) ? 1 : subtreeSize[node];
+    }
+
+    // node 서브트리의 Leaf 만 순서대로 (배열 구간을 그대로 훑음)
+    void forEachLeaf(int node, Consumer<Component> action) {
+        for(int i = leafOffset[node], end = leafOffset[node + subtreeSize[node]]; i < end; i++)
+            action.accept(leaves[i]);
+    }
+
+    long sumLeaves(int node, ToLongFunction<Component> mapper) {
+        long sum = 0;
+        for(int i = leafOffset[node], end = leafOffset[node + subtreeSize[node]]; i < end; i++)
+            sum += mapper.applyAsLong(leaves[i]);
+        return sum;
+    }
+
+    // Leaf 값의 누적합 (길이 = Leaf 수 + 1), 한번 만들어 두면 subtreeSum 이 O(1)
+    long[] prefixSums(ToLongFunction<Component> mapper) {
+        long[] prefix = new long[leaves.length + 1];
+        for(int i = 0; i < leaves.length; i++)
+            prefix[i + 1] = prefix[i] + mapper.applyAsLong(leaves[i]);
+        return prefix;
+    }
+
+    long subtreeSum(int node, long[] prefix) {
+        return prefix[leafOffset[node + subtreeSize[node]]] - prefix[leafOffset[node]];
+    }
 
-        // 내부 리스트를 순회하여 단일 Leaf 이면 값을 출력하고
-        // 또 다른 서브 복합 객체이면 다시 그 내부를 순회하는 재귀 함수 동작
-        componentList.forEach(Component::operation);
+    // 구조 배열이 차지하는 대략적인 바이트 수 (Leaf 객체 자체는 제외)
+    long footprintBytes() {
+        return kinds.length + 4L * (subtreeSize.length + childCount.length + leafOffset.length) + 4L * leaves.length + 5 * 16;
+    }
+
+    // CompositeC.operation() 과 같은 순서로 출력 (복합체는 번호로 표시)
+    public void operation() {
+        for(int node = 0; node < kinds.length; node++) {
+            if(kinds[node] == LEAF)
+                leaf(node).operation();
+            else
+                System.out.println("FrozenComposite#" + node + " call");
+        }
     }
+}
+
+/* 병렬 복합체 순회 (Fork/Join)
+ * operation() 은 한 쓰레드에서 재귀로 순회하기 때문에 Leaf 가 수백만개인 트리는 코어 하나만 씀
+ *  1. 작업을 나누는 기준은 서브트리 크기 (CompositeAggregate.NODE_COUNT, 시작 전에 호출 쓰레드에서 한번 계산해 캐시하고 작업 안에서는 읽기만)
+ *      1-1 자식 리스트를 [from, to) 구간으로 보고, 구간의 서브트리 크기 합이 threshold 보다 크면 크기 합이 반이 되는 위치에서 쪼개 fork
+ *      1-2 threshold 이하인 구간 / 서브트리는 쪼개지 않고 현재 쓰레드에서 CompositeWalker 로 바로 처리 (작은 서브 복합체마다 작업을 만들지 않음)
+ *  2. 자식이 많은 넓은 트리는 구간 분할로, 자식 하나에 몰린 깊은 트리는 그 자식 안으로 내려가서 나뉘어 모든 코어에 퍼짐
+ *  3. 순회하는 동안 트리를 고치면 안 됨 (CompositeC 와 마찬가지로 쓰레드 안전하지 않음)
+ *  4. action 은 노드 하나만 처리해야 함 (CompositeC.operation 처럼 자식까지 순회하는 함수를 넘기면 중복 방문)
+ *  5. reduce 는 Leaf 와 FrozenComposite(안의 Leaf 를 순서대로) 만 값으로 합치고, 그 밖의 Component 를 만나면 IllegalArgumentException
+ *  6. 작업 안에서 다음 작업을 compute / invokeAll 로 부르므로 작업이 겹칠 때마다 호출 스택이 쌓임
+ *      6-1 겹친 작업 수가 MAX_DEPTH 에 닿으면 남은 서브트리는 더 나누지 않고 CompositeWalker(명시적 스택)로 순회 -> 깊이가 수백만인 트리도 StackOverflowError 없음
+ *      6-2 그 아래는 한 쓰레드에서만 처리되므로, 긴 체인 아래에 큰 서브트리가 달린 트리는 병렬성이 줄어듦
+ *  forEach -> RecursiveAction / reduce -> RecursiveTask
+ */
+final class ParallelComposite {
+    static final int DEFAULT_THRESHOLD = 1_024;
+    static final int MAX_DEPTH = 256;
+
+    private ParallelComposite() {}
+
+    static void forEach(CompositeC root, Consumer<Component> action, ForkJoinPool pool, int threshold) {
+        checkThreshold(threshold);
+        root.aggregate(CompositeAggregate.NODE_COUNT);
+        pool.invoke(new ForEachTask(root, action, threshold, 0));
+    }
+
+    static <R> R reduce(CompositeC root, R identity, Function<Leaf, R> mapper, BinaryOperator<R> combiner,
+                        ForkJoinPool pool, int threshold) {
+        checkThreshold(threshold);
+        long weight = root.aggregate(CompositeAggregate.NODE_COUNT) - 1;
+        return pool.invoke(new ReduceTask<>(root.componentList, 0, root.componentList.size(), weight, identity, mapper, combiner, threshold, 0));
+    }
+
+    private static void checkThreshold(int threshold) {
+        if(threshold <= 0)
+            throw new IllegalArgumentException("threshold 는 1 이상 -> " + threshold);
+    }
+
+    // 서브트리 노드 수 (복합체는 캐시된 NODE_COUNT, 그 밖에는 노드 하나)
+    private static long weight(Component component) {
+        return component instanceof CompositeC ? ((CompositeC) component).aggregate(CompositeAggregate.NODE_COUNT) : 1;
+    }
+
+    // 복합체 자신을 처리한 뒤 자식 구간 작업으로 넘김 (서브트리가 작으면 통째로 현재 쓰레드에서)
+    private static final class ForEachTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final CompositeC composite;
+        private final Consumer<Component> action;
+        private final int threshold;
+        private final int depth;
+
+        ForEachTask(CompositeC composite, Consumer<Component> action, int threshold, int depth) {
+            this.composite = composite;
+            this.action = action;
+            this.threshold = threshold;
+            this.depth = depth;
+        }
 
+        @Override
+        protected void compute() {
+            long weight = weight(composite);
+            if(weight <= threshold || depth >= MAX_DEPTH) {
+                CompositeWalker.UNBOUNDED.walk(composite, action);
+                return;
+            }
+
+            action.accept(composite);
+            List<Component> children = composite.componentList;
+            new ForEachRange(children, 0, children.size(), weight - 1, action, threshold, depth + 1).compute();
+        }
+    }
+
+    private static final class ForEachRange extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final List<Component> children;
+        private final int from;
+        private final int to;
+        private final long weight;   // [from, to) 자식들의 서브트리 크기 합
+        private final Consumer<Component> action;
+        private final int threshold;
+        private final int depth;
+
+        ForEachRange(List<Component> children, int from, int to, long weight, Consumer<Component> action, int threshold, int depth) {
+            this.children = children;
+            this.from = from;
+            this.to = to;
+            this.weight = weight;
+            this.action = action;
+            this.threshold = threshold;
+            this.depth = depth;
+        }
+
+        @Override
+        protected void compute() {
+            if(weight <= threshold || depth >= MAX_DEPTH) {
+                for(int i = from; i < to; i++)
+                    CompositeWalker.UNBOUNDED.walk(children.get(i), action);
+                return;
+            }
+
+            // 자식 하나가 threshold 보다 크면 (Leaf 는 크기 1 이므로 복합체) 그 안으로 내려가서 나눔
+            if(to - from == 1) {
+                new ForEachTask((CompositeC) children.get(from), action, threshold, depth + 1).compute();
+                return;
+            }
+
+            long leftWeight = 0;
+            int middle = from;
+            while(middle < to - 1 && leftWeight < weight / 2)
+                leftWeight += weight(children.get(middle++));
+
+            invokeAll(new ForEachRange(children, from, middle, leftWeight, action, threshold, depth + 1),
+                    new ForEachRange(children, middle, to, weight - leftWeight, action, threshold, depth + 1));
+        }
+    }
+
+    // [from, to) 자식들의 서브트리를 순서대로 합친 값 (결합법칙만 만족하는 combiner 도 쓸 수 있도록 순서는 유지)
+    private static final class ReduceTask<R> extends RecursiveTask<R> {
+        private static final long serialVersionUID = 1L;
+
+        private final List<Component> children;
+        private final int from;
+        private final int to;
+        private final long weight;
+        private final R identity;
+        private final Function<Leaf, R> mapper;
+        private final BinaryOperator<R> combiner;
+        private final int threshold;
+        private final int depth;
+
+        ReduceTask(List<Component> children, int from, int to, long weight, R identity,
+                   Function<Leaf, R> mapper, BinaryOperator<R> combiner, int threshold, int depth) {
+            this.children = children;
+            this.from = from;
+            this.to = to;
+            this.weight = weight;
+            this.identity = identity;
+            this.mapper = mapper;
+            this.combiner = combiner;
+            this.threshold = threshold;
+            this.depth = depth;
+        }
+
+        @Override
+        protected R compute() {
+            if(weight <= threshold || depth >= MAX_DEPTH) {
+                Accumulator accumulator = new Accumulator();
+                for(int i = from; i < to; i++)
+                    CompositeWalker.UNBOUNDED.walk(children.get(i), accumulator);
+                return accumulator.result;
+            }
+
+            if(to - from == 1) {
+                List<Component> grandChildren = ((CompositeC) children.get(from)).componentList;
+                return new ReduceTask<>(grandChildren, 0, grandChildren.size(), weight - 1, identity, mapper, combiner, threshold, depth + 1).compute();
+            }
+
+            long leftWeight = 0;
+            int middle = from;
+            while(middle < to - 1 && leftWeight < weight / 2)
+                leftWeight += weight(children.get(middle++));
+
+            ReduceTask<R> left = new ReduceTask<>(children, from, middle, leftWeight, identity, mapper, combiner, threshold, depth + 1);
+            ReduceTask<R> right = new ReduceTask<>(children, middle, to, weight - leftWeight, identity, mapper, combiner, threshold, depth + 1);
+            left.fork();
+            R rightResult = right.compute();
+            return combiner.apply(left.join(), rightResult);
+        }
+
+        // 작은 구간은 전위 순서대로 Leaf 값을 접음 (복합체 자신은 값이 없고 자식은 CompositeWalker 가 따로 넘김)
+        private final class Accumulator implements Consumer<Component> {
+            R result = identity;
+
+            @Override
+            public void accept(Component component) {
+                if(component instanceof Leaf)
+                    result = combiner.apply(result, mapper.apply((Leaf) component));
+                else if(component instanceof FrozenComposite)
+                    ((FrozenComposite) component).forEachLeaf(0, this);
+                else if(!(component instanceof CompositeC))
+                    throw new IllegalArgumentException("reduce 할 수 없는 Component -> " + component.getClass().getName());
+            }
+        }
+    }
 }
 
 /* Composite 패턴 특징
@@ -1,5 +1,23 @@
 package com.pattern.structural;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntConsumer;
+
 /* 데코레이터 패턴 (동적 기능 추가)
  * 데코레이터 패턴은 대상 객체에 대한 기능 확장이나 변경이 필요할때 객체의 결합을 통해 서브클래싱 대신 쓸 수 있는 유연한 대안 구조
  * 데코레이터 패턴을 이용 시 필요한 추가 기능의 조합을 런타임에서 동적으로 생성 할 수 있음. 데코레이터할 대상 객체를 새로운 행동들을 포함한 특수
@@ -23,6 +41,27 @@ public class Decorator {
 
         // 4. 장식 1 + 2 하기
         IComponent decorator3 = new ComponentDecorator1(new ComponentDecorator2(component));
+
+        // 5. 장식 스택을 하나의 평평한 파이프라인으로 합치기 (원본 -> 장식 2 -> 장식 1 순서로 실행)
+        DecoratorChain fused = DecoratorChain.fuse(decorator3);
+        fused.operation();
+
+        // 6. 빌더로 직접 조립
+        DecoratorChain chain = DecoratorChain.builder(component)
+                .then(() -> System.out.println("extra 1"))
+                .then(() -> System.out.println("extra 2"))
+                .build();
+        chain.operation();
+        System.out.println("depth = " + chain.depth());
+
+        // 7. 감사 로그 같은 느린 부가 기능은 호출한 쓰레드 밖으로 (원본 operation 은 그대로 동기 실행)
+        //    부가 기능 1 초에 5 번까지 -> 10 건씩 묶어서 -> 백그라운드 큐에서 실행
+        try(BatchingDecorator batching = new BatchingDecorator(component, count -> System.out.println("audit flush " + count + " 건"), 10, 100);
+            AsyncDecorator async = new AsyncDecorator(batching, () -> System.out.println("async audit"), 1024, AsyncDecorator.Overflow.DROP)) {
+            IComponent limited = new RateLimitingDecorator(async, () -> System.out.println("rate limited audit"), 5, 5);
+            for(int i = 0; i < 25; i++)
+                limited.operation();
+        }
     }
 }
 
@@ -54,6 +93,9 @@ abstract class AbstractDecorator implements IComponent {
         // 위임
         wrapper.operation();
     }
+
+    // 장식자마다 원본 실행 후에 덧붙이는 기능 (DecoratorChain 이 스택을 펼칠 때 이 메소드만 꺼내 씀)
+    void extraOperation() {}
 }
 
 class ComponentDecorator1 extends AbstractDecorator {
@@ -84,6 +126,331 @@ class ComponentDecorator2 extends AbstractDecorator {
     void extraOperation() {}
 }
 
+/* 데코레이터 체인 합치기(fusion)
+ * new ComponentDecorator1(new ComponentDecorator2(component)) 는 operation() 한번이 장식 개수 만큼 wrapper.operation() 으로 중첩 호출됨
+ * AbstractDecorator.operation() 호출 지점에 여러 장식자 클래스가 섞여 들어오면 megamorphic 이 되고, 몇 단계를 넘으면 JIT 가 인라이닝을 포기
+ *  1. 장식자의 부가 기능(extraOperation)만 실행 순서대로 꺼내서 Runnable 배열 하나로 펼침 -> 중첩 없이 배열을 한번 훑기만 함
+ *      1-1 실행 순서는 기존 스택과 같음 : 원본 operation -> 가장 안쪽 장식자 -> ... -> 가장 바깥 장식자
+ *  2. toMethodHandle() : 같은 단계를 foldArguments 로 이어 붙인 ()V MethodHandle
+ *      2-1 static final 상수에 담아두면 JIT 가 전체 체인을 한 덩어리로 인라이닝
+ *  3. fuse() 는 원본 실행 후 extraOperation() 을 호출하는 이 파일의 장식자 형태를 전제로 함 (operation 을 다르게 재정의한 장식자는 builder 로 직접 조립)
+ * 만들어진 뒤에는 바꿀 수 없음 (장식을 바꾸려면 다시 build)
+ */
+final class DecoratorChain implements IComponent {
+    private static final MethodHandle RUN;
+
+    static {
+        try {
+            RUN = MethodHandles.lookup().findVirtual(Runnable.class, "run", MethodType.methodType(void.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final Runnable[] stages;   // 0 번은 원본 operation
+
+    private DecoratorChain(Runnable[] stages) {
+        this.stages = stages;
+    }
+
+    static Builder builder(IComponent component) {
+        return new Builder(component);
+    }
+
+    // 이미 만들어진 AbstractDecorator 스택을 바깥에서 안쪽으로 벗겨내며 펼침
+    static DecoratorChain fuse(IComponent decorated) {
+        Deque<AbstractDecorator> decorators = new ArrayDeque<>();
+        IComponent component = decorated;
+        while(component instanceof AbstractDecorator) {
+            AbstractDecorator decorator = (AbstractDecorator) component;
+            decorators.push(decorator);
+            component = decorator.wrapper;
+        }
+
+        Builder builder = builder(component);
+        for(AbstractDecorator decorator : decorators)   // push 했으므로 가장 안쪽부터 나옴
+            builder.then(decorator::extraOperation);
+        return builder.build();
+    }
+
+    public void operation() {
+        for(Runnable stage : stages)
+            stage.run();
+    }
+
+    // 장식 단계 수 (원본 제외)
+    int depth() {
+        return stages.length - 1;
+    }
+
+    MethodHandle toMethodHandle() {
+        MethodHandle pipeline = RUN.bindTo(stages[0]);
+        for(int i = 1; i < stages.length; i++)
+            pipeline = MethodHandles.foldArguments(RUN.bindTo(stages[i]), pipeline);   // pipeline 실행 후 stages[i]
+        return pipeline;
+    }
+
+    static final class Builder {
+        private final IComponent component;
+        private final List<Runnable> extras = new ArrayList<>();
+
+        private Builder(IComponent component) {
+            if(component == null)
+                throw new IllegalArgumentException("component 는 null 일 수 없음");
+            this.component = component;
+        }
+
+        // 지금까지 추가한 단계 다음에 실행 (먼저 추가한 것이 기존 스택의 안쪽 장식자)
+        Builder then(Runnable extra) {
+            if(extra == null)
+                throw new IllegalArgumentException("extra 는 null 일 수 없음");
+            extras.add(extra);
+            return this;
+        }
+
+        DecoratorChain build() {
+            Runnable[] stages = new Runnable[extras.size() + 1];
+            stages[0] = component::operation;
+            for(int i = 0; i < extras.size(); i++)
+                stages[i + 1] = extras.get(i);
+            return new DecoratorChain(stages);
+        }
+    }
+}
+
+/* 비동기 / 묶음 / 속도 제한 장식자
+ * 감사 로그 쓰기 같은 I/O 부가 기능을 extraOperation 에서 그대로 실행하면 장식할 때마다 호출한 쓰레드의 지연 시간이 늘어남
+ * 세 장식자 모두 원본 operation 은 호출한 쓰레드에서 동기로 실행하고, 부가 기능(extra)만 다르게 처리
+ *  1. AsyncDecorator : 부가 기능을 크기가 정해진 큐에 넣고 전용 쓰레드 하나가 순서대로 실행
+ *      1-1 큐가 가득 차면 Overflow 정책 -> DROP(버리고 개수만 셈) / CALLER_RUNS(호출한 쓰레드에서 실행, 자연스러운 backpressure)
+ *      1-2 close() 이후 호출은 정책과 상관 없이 dropped, 부가 기능이 던진 예외는 failures 로 셈
+ *  2. BatchingDecorator : 호출 N 번 또는 T 밀리초 중 먼저 오는 쪽마다 flush 한번 (flush 에는 묶인 호출 수를 넘김)
+ *      2-1 flush 는 전용 스케줄러 쓰레드에서 실행 -> 호출한 쓰레드는 카운터 증가만 함 (close() 의 마지막 flush 만 close 를 부른 쓰레드에서 실행)
+ *      2-2 flush 가 던진 예외는 failures 로 세고 다음 주기 flush 는 계속
+ *      2-3 마지막 flush 가 pending 을 CLOSED 로 바꾸므로 그 뒤의 호출은 어느 flush 에도 들어가지 못하고 dropped 로 셈
+ *  3. RateLimitingDecorator : 초당 permitsPerSecond 번(burst 만큼 몰아서 가능)까지만 부가 기능 실행, 넘는 호출은 부가 기능만 건너뜀
+ *      3-1 토큰 버킷을 GCRA(다음 허용 시각 하나)로 구현해서 AtomicLong CAS 한번으로 판단 (락 없음)
+ * 모두 AbstractDecorator 를 상속하므로 다른 장식자와 자유롭게 겹쳐 쌓을 수 있고 DecoratorChain.fuse() 로도 펼칠 수 있음
+ * Async / Batching 은 쓰레드를 가지므로 다 쓰면 close() (남은 작업을 마저 실행하고 종료)
+ */
+class AsyncDecorator extends AbstractDecorator implements AutoCloseable {
+    enum Overflow { DROP, CALLER_RUNS }
+
+    private static final AtomicInteger THREAD_IDS = new AtomicInteger();
+
+    private final Runnable extra;
+    private final ThreadPoolExecutor executor;
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    AsyncDecorator(IComponent wrapper, Runnable extra, int capacity, Overflow overflow) {
+        super(wrapper);
+        if(capacity <= 0)
+            throw new IllegalArgumentException("capacity 는 1 이상 -> " + capacity);
+
+        this.extra = extra;
+        this.executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(capacity), runnable -> {
+            Thread thread = new Thread(runnable, "async-decorator-" + THREAD_IDS.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, (task, executor) -> {
+            // 거부 핸들러는 예외를 던지지 않으므로 close() 이후 호출도 여기서 dropped 로 셈
+            if(overflow == Overflow.CALLER_RUNS && !executor.isShutdown())
+                task.run();
+            else
+                dropped.increment();
+        });
+    }
+
+    public void operation() {
+        super.operation();
+        extraOperation();
+    }
+
+    void extraOperation() {
+        executor.execute(this::runExtra);
+    }
+
+    private void runExtra() {
+        try {
+            extra.run();
+        } catch (RuntimeException e) {
+            failures.increment();
+        }
+    }
+
+    long dropped() {
+        return dropped.sum();
+    }
+
+    long failures() {
+        return failures.sum();
+    }
+
+    int pending() {
+        return executor.getQueue().size();
+    }
+
+    // 큐에 남은 부가 기능까지 실행하고 종료
+    public void close() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
+
+class BatchingDecorator extends AbstractDecorator implements AutoCloseable {
+    private static final int CLOSED = Integer.MIN_VALUE;
+
+    private final IntConsumer flush;
+    private final int batchSize;
+    private final ScheduledExecutorService scheduler;
+    private final AtomicInteger pending = new AtomicInteger();   // CLOSED -> 마지막 flush 이후
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    BatchingDecorator(IComponent wrapper, IntConsumer flush, int batchSize, long flushIntervalMillis) {
+        super(wrapper);
+        if(batchSize <= 0 || flushIntervalMillis <= 0)
+            throw new IllegalArgumentException("batchSize / flushIntervalMillis 는 1 이상 -> " + batchSize + " / " + flushIntervalMillis);
+
+        this.flush = flush;
+        this.batchSize = batchSize;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "batching-decorator");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::flush, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public void operation() {
+        super.operation();
+        extraOperation();
+    }
+
+    // 정확히 batchSize 번째 호출에서만 flush 를 예약 (그 사이 호출은 다음 flush 에 같이 묶임)
+    void extraOperation() {
+        int count;
+        do {
+            count = pending.get();
+            if(count == CLOSED) {
+                dropped.increment();   // close() 의 마지막 flush 이후
+                return;
+            }
+        } while(!pending.compareAndSet(count, count + 1));
+
+        if((count + 1) % batchSize == 0) {
+            try {
+                scheduler.execute(this::flush);
+            } catch (RejectedExecutionException ignored) {
+                // close() 가 스케줄러를 멈춘 뒤 -> 아직 CLOSED 가 아니었으므로 close 의 마지막 flush 에 포함됨
+            }
+        }
+    }
+
+    private void flush() {
+        flush(0);
+    }
+
+    // 스케줄러 쓰레드에서 호출, close() 는 스케줄러가 끝난 뒤 호출한 쓰레드에서 CLOSED 로 바꾸며 한번 더 호출
+    // (close 가 기다리다 인터럽트 되어 스케줄러 flush 와 겹쳐도 CLOSED 는 되돌리지 않음)
+    private void flush(int next) {
+        int count;
+        do {
+            count = pending.get();
+            if(count == CLOSED)
+                return;
+        } while(!pending.compareAndSet(count, next));
+
+        if(count == 0)
+            return;
+
+        flushes.increment();
+        try {
+            flush.accept(count);
+        } catch (RuntimeException e) {
+            // 한번 실패해도 다음 주기 flush 는 계속 (스케줄 작업은 예외가 나면 더 이상 실행되지 않음)
+            failures.increment();
+        }
+    }
+
+    long flushes() {
+        return flushes.sum();
+    }
+
+    long failures() {
+        return failures.sum();
+    }
+
+    // close() 이후라 flush 하지 못한 호출 수
+    long dropped() {
+        return dropped.sum();
+    }
+
+    public void close() {
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush(CLOSED);
+    }
+}
+
+class RateLimitingDecorator extends AbstractDecorator {
+    private final Runnable extra;
+    private final long intervalNanos;
+    private final long toleranceNanos;
+
+    // 다음 호출이 허용되는 이론상 시각 (GCRA 의 TAT)
+    private final AtomicLong nextAllowed = new AtomicLong(Long.MIN_VALUE);
+    private final LongAdder rejected = new LongAdder();
+
+    RateLimitingDecorator(IComponent wrapper, Runnable extra, double permitsPerSecond, int burst) {
+        super(wrapper);
+        if(permitsPerSecond <= 0 || burst <= 0)
+            throw new IllegalArgumentException("permitsPerSecond / burst 는 0 보다 커야 함 -> " + permitsPerSecond + " / " + burst);
+
+        this.extra = extra;
+        this.intervalNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond));
+        this.toleranceNanos = intervalNanos * (burst - 1);
+    }
+
+    public void operation() {
+        super.operation();
+        extraOperation();
+    }
+
+    void extraOperation() {
+        if(tryAcquire())
+            extra.run();
+        else
+            rejected.increment();
+    }
+
+    boolean tryAcquire() {
+        long now = System.nanoTime();
+        while(true) {
+            long allowed = nextAllowed.get();
+            long start = allowed == Long.MIN_VALUE || allowed - now < 0 ? now : allowed;
+            if(start - now > toleranceNanos)
+                return false;
+            if(nextAllowed.compareAndSet(allowed, start + intervalNanos))
+                return true;
+        }
+    }
+
+    long rejected() {
+        return rejected.sum();
+    }
+}
+
 /* Decorator 패턴 특징
  * 패턴 사용시기
  *  1. 객체 책임과 행동이 동적으로 상황에 따라 다양한 기능이 빈번하게 추가/삭제되는 경우
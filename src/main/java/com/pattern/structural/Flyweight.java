@@ -2,9 +2,6 @@ package com.pattern.structural;
 
 import lombok.AllArgsConstructor;
 
-import java.util.HashMap;
-import java.util.Map;
-
 /* 플라이웨이트 패턴(공유 객체를 활용해 메모리 절약)
  * 재사용 가능한 객체 인스턴스를 공유시키 메모리 사용량을 최소화하는 구조 패턴
  * 간단히 요약하면 캐시(Cache) 개념을 코드로 패턴화 한것으로 보면 되는데
@@ -31,6 +28,27 @@ public class Flyweight {
         iFlyweight unsharedFlyweight = new UnsharedConcreteFlyweight("unique");
         unsharedFlyweight.render("Position 4");
 
+        System.out.println(flyweightFactory.stats()); // hits=1, misses=2
+
+        // 크기 제한 + weak 모드 팩토리 (키 종류가 많은 경우 무한히 커지지 않도록)
+        FlyweightFactory boundedFactory = new FlyweightFactory(
+                FlyweightPool.builder().maximumSize(2).weakValues().build(ConcreteFlyweight::new));
+        boundedFactory.getFlyweight("A");
+        boundedFactory.getFlyweight("B");
+        boundedFactory.getFlyweight("A");
+        boundedFactory.getFlyweight("C"); // 최근에 참조 되지 않은 B 가 제거됨
+        System.out.println(boundedFactory.stats());
+
+        // int ID + 바이트 아레나 플라이웨이트 (render 호출마다 할당 없음)
+        FlyweightStore store = FlyweightStore.offHeap(16, 64);
+        int treeId = store.intern("Tree");
+        int rockId = store.intern("Rock");
+        FlyweightStore.Renderer renderer = (arena, offset, length, extrinsicState) ->
+                System.out.println("렌더링 플라이웨이트 id 구간 -> [" + offset + ", " + (offset + length) + ") x=" + FlyweightStore.x(extrinsicState) + " y=" + FlyweightStore.y(extrinsicState));
+        store.render(treeId, FlyweightStore.position(10, 20), renderer);
+        store.render(rockId, FlyweightStore.position(30, 40), renderer);
+        store.render(store.intern("Tree"), FlyweightStore.position(50, 60), renderer); // 같은 ID 재사용
+
     }
 }
 
@@ -71,18 +89,25 @@ class UnsharedConcreteFlyweight implements iFlyweight {
 }
 
 // 경량 객체를 관리하는 팩토리
+// 캐시는 FlyweightPool 에 위임 -> 단일 조회, 쓰레드 세이프, 크기 제한 / weak 모드, 지표
 class FlyweightFactory {
-    private final Map<String, iFlyweight> flyweight = new HashMap<>();
+    private final FlyweightPool<String, iFlyweight> flyweight;
+
+    FlyweightFactory() {
+        this(FlyweightPool.unbounded(ConcreteFlyweight::new));
+    }
+
+    FlyweightFactory(FlyweightPool<String, iFlyweight> flyweight) {
+        this.flyweight = flyweight;
+    }
 
     public iFlyweight getFlyweight(String key) {
-        if(!flyweight.containsKey(key)) {
-            System.out.println("새로운 플라이웨이트 키 생성 -> " + key);
-            flyweight.put(key , new ConcreteFlyweight(key));
-        } else {
-            System.out.println("재사용 존재하는 플라이웨이트 키 -> " + key);
-        }
         return flyweight.get(key);
     }
+
+    public FlyweightPool.Stats stats() {
+        return flyweight.stats();
+    }
 }
 
 /*
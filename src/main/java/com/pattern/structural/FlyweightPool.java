@@ -0,0 +1,258 @@
+package com.pattern.structural;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/* 동시성 플라이웨이트 풀 (FlyweightFactory 의 캐시 역할을 분리)
+ * 기존 FlyweightFactory 는 HashMap 에 containsKey -> put -> get 세번 조회하고, 쓰레드 세이프 하지 않고, 절대 비우지 않음
+ *  1. 조회 : ConcurrentHashMap.get 한번으로 끝나는 lock-free 히트 경로
+ *  2. 생성 : 미스일때만 compute 로 진입 -> 같은 키에 대한 동시 미스는 factory 를 한번만 호출 (computeIfAbsent 의미)
+ *  3. 크기 제한 : maximumSize 를 넘으면 CLOCK(second-chance) 알고리즘으로 LRU 에 근사하게 제거
+ *      3-1 히트때는 referenced 표시만 하고(락 X), 제거는 미스 경로의 evictionLock 안에서만 일어남
+ *  4. weakValues : 값을 WeakReference 로 들고 있다가 메모리가 부족해 GC 가 회수하면 맵에서도 제거
+ *      4-1 회수된 노드는 removed 로 표시, CLOCK 큐는 크기 제한을 넘을 때만 비우므로 표시된 노드가 maximumSize 개 넘게 쌓이면 큐에서 한번에 걷어냄
+ *          (그대로 두면 크기 제한 아래에서 키가 계속 바뀌는 경우 큐가 죽은 노드와 그 키를 끝없이 붙잡고 있음)
+ *  5. 지표 : hit / miss / eviction(크기 제한) / collection(GC 회수) 카운터를 LongAdder 로 집계 (경합이 있어도 카운터가 병목이 되지 않음)
+ */
+final class FlyweightPool<K, V> {
+
+    private final Function<? super K, ? extends V> factory;
+    private final long maximumSize;
+    private final boolean weakValues;
+
+    private final ConcurrentHashMap<K, Node<K, V>> map = new ConcurrentHashMap<>();
+    // CLOCK 의 원형 큐 (크기 제한이 있을 때만 사용)
+    private final ConcurrentLinkedQueue<Node<K, V>> clock = new ConcurrentLinkedQueue<>();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    // GC 가 회수한 값의 참조가 들어오는 큐 (weakValues 일 때만 사용)
+    private final ReferenceQueue<V> collected = new ReferenceQueue<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder collections = new LongAdder();
+    // CLOCK 큐에 남아 있을 수 있는 removed 노드 수 (대략적인 값, 걷어낼 시점 판단용)
+    private final LongAdder removedInClock = new LongAdder();
+
+    private FlyweightPool(Builder builder, Function<? super K, ? extends V> factory) {
+        this.factory = Objects.requireNonNull(factory, "factory");
+        this.maximumSize = builder.maximumSize;
+        this.weakValues = builder.weakValues;
+    }
+
+    static Builder builder() {
+        return new Builder();
+    }
+
+    static <K, V> FlyweightPool<K, V> unbounded(Function<? super K, ? extends V> factory) {
+        return builder().build(factory);
+    }
+
+    public V get(K key) {
+        Node<K, V> node = map.get(key);
+        if(node != null) {
+            V value = node.value();
+            if(value != null) {
+                node.markReferenced();
+                hits.increment();
+                return value;
+            }
+        }
+        return load(key);
+    }
+
+    public long size() {
+        return map.size();
+    }
+
+    public Stats stats() {
+        return new Stats(hits.sum(), misses.sum(), evictions.sum(), collections.sum(), map.size());
+    }
+
+    @SuppressWarnings("unchecked")
+    private V load(K key) {
+        // compute 안에서 생성된 값을 강한 참조로 잡아둠 (weakValues 일 때 반환 전에 회수되는 것을 방지)
+        Object[] loaded = new Object[1];
+        boolean[] created = new boolean[1];
+
+        Node<K, V> node = map.compute(key, (k, old) -> {
+            if(old != null) {
+                V value = old.value();
+                if(value != null) {
+                    loaded[0] = value;
+                    return old;
+                }
+            }
+            V value = Objects.requireNonNull(factory.apply(k), "factory 가 null 을 반환");
+            loaded[0] = value;
+            created[0] = true;
+            return new Node<>(k, value, weakValues ? collected : null);
+        });
+
+        if(created[0]) {
+            misses.increment();
+            if(maximumSize > 0) {
+                clock.offer(node);
+                evictIfNeeded();
+            }
+        } else {
+            hits.increment(); // 다른 쓰레드가 먼저 생성
+        }
+
+        if(weakValues)
+            purgeCollected();
+
+        return (V) loaded[0];
+    }
+
+    // CLOCK : 큐 앞에서 꺼내 최근에 참조 되었으면 표시만 지우고 뒤로 보내고(second chance), 아니면 제거
+    private void evictIfNeeded() {
+        if(map.size() <= maximumSize)
+            return;
+
+        evictionLock.lock();
+        try {
+            while(map.size() > maximumSize) {
+                Node<K, V> node = clock.poll();
+                if(node == null)
+                    break;
+
+                if(map.get(node.key) != node)
+                    continue; // 이미 제거 되거나 교체된 노드
+
+                if(node.referenced) {
+                    node.referenced = false;
+                    clock.offer(node);
+                } else if(map.remove(node.key, node)) {
+                    evictions.increment();
+                }
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    // compute 에서 교체된 노드도 값이 회수된 노드이므로 여기서 같이 표시됨
+    @SuppressWarnings("unchecked")
+    private void purgeCollected() {
+        long purged = 0;
+        WeakValue<K, V> reference;
+        while((reference = (WeakValue<K, V>) collected.poll()) != null) {
+            Node<K, V> node = reference.node;
+            node.removed = true;
+            if(map.remove(node.key, node))
+                collections.increment();
+            purged++;
+        }
+
+        if(purged > 0 && maximumSize > 0) {
+            removedInClock.add(purged);
+            if(removedInClock.sum() > maximumSize)
+                sweepClock();
+        }
+    }
+
+    // CLOCK 큐에서 removed 노드를 걷어냄 (이미 누가 제거 중이면 건너뜀, 다음 purge 에서 다시 시도)
+    private void sweepClock() {
+        if(!evictionLock.tryLock())
+            return;
+        try {
+            removedInClock.reset();
+            clock.removeIf(node -> node.removed);
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    static final class Builder {
+        private long maximumSize;
+        private boolean weakValues;
+
+        // 0 이하 -> 크기 제한 없음
+        Builder maximumSize(long maximumSize) {
+            this.maximumSize = maximumSize;
+            return this;
+        }
+
+        Builder weakValues() {
+            this.weakValues = true;
+            return this;
+        }
+
+        <K, V> FlyweightPool<K, V> build(Function<? super K, ? extends V> factory) {
+            return new FlyweightPool<>(this, factory);
+        }
+    }
+
+    private static final class Node<K, V> {
+        final K key;
+        // 강한 참조 모드면 strong, weakValues 모드면 weak 중 하나만 사용
+        final V strong;
+        final WeakValue<K, V> weak;
+        volatile boolean referenced;
+        volatile boolean removed;   // 값이 회수되어 맵에서 빠짐 (CLOCK 큐에서 걷어낼 대상)
+
+        Node(K key, V value, ReferenceQueue<V> queue) {
+            this.key = key;
+            if(queue == null) {
+                this.strong = value;
+                this.weak = null;
+            } else {
+                this.strong = null;
+                this.weak = new WeakValue<>(value, queue, this);
+            }
+        }
+
+        V value() {
+            return strong != null ? strong : weak.get();
+        }
+
+        // 이미 표시 되어 있으면 쓰지 않음 (히트 때마다 캐시 라인을 더럽히지 않도록)
+        void markReferenced() {
+            if(!referenced)
+                referenced = true;
+        }
+    }
+
+    private static final class WeakValue<K, V> extends WeakReference<V> {
+        final Node<K, V> node;
+
+        WeakValue(V value, ReferenceQueue<V> queue, Node<K, V> node) {
+            super(value, queue);
+            this.node = node;
+        }
+    }
+
+    static final class Stats {
+        final long hits;
+        final long misses;
+        final long evictions;
+        final long collections;
+        final long size;
+
+        Stats(long hits, long misses, long evictions, long collections, long size) {
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.collections = collections;
+            this.size = size;
+        }
+
+        double hitRate() {
+            long requests = hits + misses;
+            return requests == 0 ? 1.0 : (double) hits / requests;
+        }
+
+        @Override
+        public String toString() {
+            return "Stats{hits=" + hits + ", misses=" + misses + ", evictions=" + evictions
+                    + ", collections=" + collections + ", size=" + size + ", hitRate=" + String.format("%.2f", hitRate()) + '}';
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package com.pattern.structural;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/* 원시 타입 특화 플라이웨이트 저장소 (intrinsic state -> int ID)
+ * ConcreteFlyweight 는 intrinsic state 하나당 객체 하나 + String 하나를 들고 있고 render 할 때마다 외부 상태를 String 으로 넘김
+ * 객체 수가 수백만이 되면 헤더 / 포인터 / String 의 char 배열 만큼 메모리를 먹고 매 render 마다 문자열을 할당함
+ * FlyweightStore 는
+ *  1. intrinsic state 를 UTF-8 바이트로 하나의 연속된 바이트 아레나(ByteBuffer)에 차곡차곡 저장
+ *  2. 각 상태는 int ID 로 식별 (offsets[id] ~ offsets[id + 1] 구간)
+ *  3. 조회용 해시 테이블도 int[] 오픈 어드레싱 -> 키마다 객체가 생기지 않음
+ *  4. render(int id, long extrinsicState, Renderer) -> 외부 상태는 long 으로 패킹(예: x / y 좌표) 해서 넘기기 때문에 호출당 할당 없음
+ *  5. onHeap -> ByteBuffer.allocate / offHeap -> ByteBuffer.allocateDirect (GC 가 스캔하지 않는 영역)
+ * intern / find 는 아레나 끝을 임시 작업 공간으로 쓰기 때문에 단일 쓰레드에서 호출해야 함
+ * interning 이 끝난 저장소를 안전하게 발행한 뒤에는 여러 쓰레드에서 render / intrinsicState 가능
+ */
+final class FlyweightStore {
+
+    // 아레나에 있는 intrinsic state 바이트 구간과 외부 상태를 받아 그리는 역할 (구현체가 할당하지 않도록 구간만 넘김)
+    interface Renderer {
+        void render(ByteBuffer arena, int offset, int length, long extrinsicState);
+    }
+
+    private static final int EMPTY = 0;
+
+    private final boolean direct;
+    private ByteBuffer arena;
+    private int tail;
+
+    // offsets[id] 부터 offsets[id + 1] 까지가 id 의 바이트 구간
+    private int[] offsets;
+    private int[] hashes;
+    private int size;
+
+    // 값이 id + 1 인 오픈 어드레싱 테이블 (0 은 빈 슬롯)
+    private int[] table;
+
+    private FlyweightStore(int expectedKeys, int arenaBytes, boolean direct) {
+        this.direct = direct;
+        this.arena = allocate(Math.max(16, arenaBytes));
+        this.offsets = new int[Math.max(2, expectedKeys + 1)];
+        this.hashes = new int[Math.max(1, expectedKeys)];
+        this.table = new int[tableCapacity(expectedKeys)];
+    }
+
+    static FlyweightStore onHeap(int expectedKeys, int arenaBytes) {
+        return new FlyweightStore(expectedKeys, arenaBytes, false);
+    }
+
+    static FlyweightStore offHeap(int expectedKeys, int arenaBytes) {
+        return new FlyweightStore(expectedKeys, arenaBytes, true);
+    }
+
+    // 외부 상태 패킹 도우미 (좌표 두개를 long 하나로)
+    static long position(int x, int y) {
+        return ((long) x << 32) | (y & 0xFFFFFFFFL);
+    }
+
+    static int x(long position) {
+        return (int) (position >> 32);
+    }
+
+    static int y(long position) {
+        return (int) position;
+    }
+
+    // 이미 있으면 기존 ID, 없으면 아레나 끝에 추가 후 새 ID
+    public int intern(String intrinsicState) {
+        // 아레나 끝에 일단 인코딩 해보고 이미 있는 상태면 tail 을 되돌림 (임시 byte[] 할당 없음)
+        ensureArena(intrinsicState.length() * 3);
+        int start = tail;
+        int hash = encode(intrinsicState, start);
+        int length = tail - start;
+
+        int mask = table.length - 1;
+        for(int slot = mix(hash) & mask; ; slot = (slot + 1) & mask) {
+            int entry = table[slot];
+            if(entry == EMPTY) {
+                int id = append(hash);
+                table[slot] = id + 1;
+                if(size * 2 > table.length)
+                    rehash();
+                return id;
+            }
+            int id = entry - 1;
+            if(hashes[id] == hash && rangeEquals(id, start, length)) {
+                tail = start;
+                return id;
+            }
+        }
+    }
+
+    // 없으면 -1
+    public int find(String intrinsicState) {
+        ensureArena(intrinsicState.length() * 3);
+        int start = tail;
+        int hash = encode(intrinsicState, start);
+        int length = tail - start;
+        tail = start;
+
+        int mask = table.length - 1;
+        for(int slot = mix(hash) & mask; ; slot = (slot + 1) & mask) {
+            int entry = table[slot];
+            if(entry == EMPTY)
+                return -1;
+            int id = entry - 1;
+            if(hashes[id] == hash && rangeEquals(id, start, length))
+                return id;
+        }
+    }
+
+    public void render(int id, long extrinsicState, Renderer renderer) {
+        checkId(id);
+        renderer.render(arena, offsets[id], offsets[id + 1] - offsets[id], extrinsicState);
+    }
+
+    // 디버깅 / 출력용 (String 을 할당하므로 핫 패스에서는 render 를 사용)
+    public String intrinsicState(int id) {
+        checkId(id);
+        int offset = offsets[id];
+        byte[] bytes = new byte[offsets[id + 1] - offset];
+        arena.get(offset, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isDirect() {
+        return direct;
+    }
+
+    // 아레나 + 인덱스 배열이 차지하는 바이트 수 (객체 헤더 제외)
+    public long footprintBytes() {
+        return (long) arena.capacity() + 4L * (offsets.length + hashes.length + table.length);
+    }
+
+    private int append(int hash) {
+        int id = size;
+        if(id + 2 > offsets.length)
+            offsets = Arrays.copyOf(offsets, offsets.length * 2);
+        if(id + 1 > hashes.length)
+            hashes = Arrays.copyOf(hashes, hashes.length * 2);
+
+        hashes[id] = hash;
+        offsets[id + 1] = tail;
+        size++;
+        return id;
+    }
+
+    private boolean rangeEquals(int id, int start, int length) {
+        int offset = offsets[id];
+        if(offsets[id + 1] - offset != length)
+            return false;
+        for(int i = 0; i < length; i++) {
+            if(arena.get(offset + i) != arena.get(start + i))
+                return false;
+        }
+        return true;
+    }
+
+    // String 을 UTF-8 로 아레나 tail 위치에 직접 쓰고, 쓴 바이트의 FNV-1a 해시를 반환
+    private int encode(String s, int position) {
+        int p = position;
+        for(int i = 0, n = s.length(); i < n; i++) {
+            char c = s.charAt(i);
+            if(c < 0x80) {
+                arena.put(p++, (byte) c);
+                continue;
+            }
+
+            int codePoint = c;
+            if(Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(s.charAt(i + 1)))
+                codePoint = Character.toCodePoint(c, s.charAt(++i));
+            else if(Character.isSurrogate(c))
+                codePoint = '?'; // 짝이 없는 surrogate 는 String.getBytes 와 같이 '?' 로 대체
+
+            if(codePoint < 0x80) {
+                p = put(p, codePoint);
+            } else if(codePoint < 0x800) {
+                p = put(p, 0xC0 | (codePoint >> 6));
+                p = put(p, 0x80 | (codePoint & 0x3F));
+            } else if(codePoint < 0x10000) {
+                p = put(p, 0xE0 | (codePoint >> 12));
+                p = put(p, 0x80 | ((codePoint >> 6) & 0x3F));
+                p = put(p, 0x80 | (codePoint & 0x3F));
+            } else {
+                p = put(p, 0xF0 | (codePoint >> 18));
+                p = put(p, 0x80 | ((codePoint >> 12) & 0x3F));
+                p = put(p, 0x80 | ((codePoint >> 6) & 0x3F));
+                p = put(p, 0x80 | (codePoint & 0x3F));
+            }
+        }
+        tail = p;
+
+        int hash = 0x811C9DC5;
+        for(int i = position; i < p; i++)
+            hash = (hash ^ (arena.get(i) & 0xFF)) * 0x01000193;
+        return hash;
+    }
+
+    private int put(int position, int value) {
+        arena.put(position, (byte) value);
+        return position + 1;
+    }
+
+    private void ensureArena(int extra) {
+        if((long) tail + extra <= arena.capacity())
+            return;
+
+        long required = (long) tail + extra;
+        long capacity = Math.max(required, (long) arena.capacity() * 2);
+        if(capacity > Integer.MAX_VALUE - 8)
+            capacity = Integer.MAX_VALUE - 8;
+        if(required > capacity)
+            throw new IllegalStateException("아레나 최대 크기 초과 -> " + required);
+
+        ByteBuffer grown = allocate((int) capacity);
+        grown.put(0, arena, 0, tail);
+        arena = grown;
+    }
+
+    private void rehash() {
+        int[] grown = new int[table.length * 2];
+        int mask = grown.length - 1;
+        for(int id = 0; id < size; id++) {
+            int slot = mix(hashes[id]) & mask;
+            while(grown[slot] != EMPTY)
+                slot = (slot + 1) & mask;
+            grown[slot] = id + 1;
+        }
+        table = grown;
+    }
+
+    private ByteBuffer allocate(int capacity) {
+        return direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+    }
+
+    private void checkId(int id) {
+        if(id < 0 || id >= size)
+            throw new IndexOutOfBoundsException("존재하지 않는 플라이웨이트 ID -> " + id);
+    }
+
+    private static int tableCapacity(int expectedKeys) {
+        int capacity = 16;
+        while(capacity < expectedKeys * 2L && capacity < (1 << 30))
+            capacity <<= 1;
+        return capacity;
+    }
+
+    // 하위 비트 편중을 막기 위한 비트 섞기
+    private static int mix(int hash) {
+        hash ^= hash >>> 16;
+        hash *= 0x85EBCA6B;
+        hash ^= hash >>> 13;
+        return hash;
+    }
+}
@@ -1,7 +1,22 @@
 package com.pattern.structural;
 
-import lombok.AllArgsConstructor;
-import lombok.NoArgsConstructor;
+import com.pattern.creational.LazyRef;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
 /* 프록시 패턴 (접근 제어 및 추가 기능 제공)
  * 클라이언트가 대상 객체를 직접 쓰는게 아니라 중간에 프록시를 거쳐 쓰는 코드 패턴
@@ -27,7 +42,7 @@ import lombok.NoArgsConstructor;
  * 단점
  *  1. 많은 프록시 클래스를 도입해야 하므로 코드의 복잡도가 증가
  *      1-1 를들어 여러 클래스에 로깅 기능을 가미 시키고 싶다면, 동일한 코드를 적용함에도 각각의 클래스에 해당되는 프록시 클래스를 만들어서 적용해야 되기 때문에 코드량이 많아지고 중복이 발생
- *      1-2 자바에서는 리플렉션에서 제공하는 동적 프록시(Dynamic Proxy) 기법을 이용해서 해결
+ *      1-2 자바에서는 리플렉션에서 제공하는 동적 프록시(Dynamic Proxy) 기법을 이용해서 해결 -> ProxyFactory + Interceptors
  *  2. 프록시 클래스 자체에 들어가는 자원이 많다면 서비스로부터의 응답이 늦어질 수 있음
  */
 public class Proxy {
@@ -38,11 +53,88 @@ public class Proxy {
         ISubject virtualProxy = new VirtualProxy();
         virtualProxy.action();
 
-        ISubject protectionProxy = new ProtectionProxy(new RealSubject(), false);
-        protectionProxy.action();
+        // 무거운 객체를 프록시 생성 시점부터 백그라운드에서 미리 만들어 둠
+        VirtualProxy preloadingProxy = VirtualProxy.preloading(() -> {
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return new RealSubject();
+        });
+        preloadingProxy.action();
+
+        // 보호 프록시 : 정책을 실행 중에 교체해도 호출자는 멈추지 않음
+        AccessGuard guard = new AccessGuard(AccessPolicy.builder().allow("admin", AccessPolicy.ANY).build(), 10_000);
+        ISubject adminProxy = new ProtectionProxy(new RealSubject(), guard, "admin");
+        ISubject userProxy = new ProtectionProxy(new RealSubject(), guard, "user");
+        adminProxy.action();
+        userProxy.action();
+        guard.reload(AccessPolicy.builder()
+                .allow("admin", AccessPolicy.ANY)
+                .allow("user", ProtectionProxy.ACTION)
+                .build());
+        userProxy.action();
+
+        // 로깅 프록시 : 호출 이벤트를 링 버퍼에 남기고 백그라운드에서 파일로 기록
+        try {
+            Path logFile = Files.createTempFile("logging-proxy", ".jsonl");
+            try(ProxyEventLog eventLog = ProxyEventLog.open(logFile, 1024, 1)) {
+                ISubject loggingProxy = new LoggingProxy(new RealSubject(), eventLog);
+                loggingProxy.action();
+            }
+            System.out.print("LoggingProxy -> " + Files.readString(logFile));
+            Files.delete(logFile);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        // 캐싱 프록시 : 8 개 쓰레드가 같은 키를 동시에 요청해도 느린 원본은 한번만 호출
+        CachingProxy<String, String> cachingProxy = CachingProxy.builder()
+                .expireAfterWrite(Duration.ofSeconds(10))
+                .refreshAfterWrite(Duration.ofSeconds(5))
+                .maximumSize(1_000)
+                .build(new RealValueSubject(Duration.ofMillis(200)));
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<String>> responses = new ArrayList<>();
+        for(int i = 0; i < 8; i++)
+            responses.add(executor.submit(() -> cachingProxy.request("www.naver.com")));
+        try {
+            for(Future<String> response : responses)
+                response.get();
+        } catch (InterruptedException | ExecutionException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            executor.shutdown();
+        }
+        System.out.println(cachingProxy.request("www.naver.com"));
+        System.out.println(cachingProxy.stats());
+
+        // 범용 프록시 : 인터페이스 마다 프록시 클래스를 만들지 않고 인터셉터 체인을 끼워서 생성
+        ProxyFactory<ISubject> subjectProxies = ProxyFactory.builder(ISubject.class)
+                .intercept(Interceptors.accessControl(() -> true))
+                .intercept(Interceptors.logging(System.out::println))
+                .intercept(Interceptors.timing((method, nanos) -> System.out.println(method + " -> " + nanos + " ns")))
+                .build();
+        subjectProxies.create(new RealSubject()).action();
+
+        // 원격 프록시 : 왕복 5ms 인 서버에 1000 번 호출 -> 응답을 기다리지 않고 보내서 왕복 시간을 겹침
+        AtomicInteger served = new AtomicInteger();
+        try(RemoteSkeleton skeleton = RemoteSkeleton.open(served::incrementAndGet, Duration.ofMillis(5));
+            RemoteProxy remoteProxy = RemoteProxy.connect(skeleton.address(), 4, 64)) {
+            remoteProxy.action();
 
-        ISubject loggingProxy = new LoggingProxy(new RealSubject());
-        loggingProxy.action();
+            long start = System.nanoTime();
+            List<CompletableFuture<Void>> calls = new ArrayList<>();
+            for(int i = 0; i < 1000; i++)
+                calls.add(remoteProxy.actionAsync());
+            CompletableFuture.allOf(calls.toArray(new CompletableFuture<?>[0])).join();
+            System.out.println("RemoteProxy -> served " + served.get() + " calls in " + remoteProxy.framesSent() + " frames, "
+                    + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 }
 
@@ -71,6 +163,31 @@ class RealSubject implements ISubject {
     }
 }
 
+// 값을 반환하는 Subject (캐싱 프록시 처럼 결과를 다루는 프록시용)
+interface IValueSubject<K, V> {
+    V request(K key);
+}
+
+// 느린 백엔드를 흉내내는 원본 객체
+class RealValueSubject implements IValueSubject<String, String> {
+    private final Duration latency;
+
+    RealValueSubject(Duration latency) {
+        this.latency = latency;
+    }
+
+    public String request(String key) {
+        System.out.println("RealValueSubject -> 원본 객체 call (" + key + ")");
+        try {
+            Thread.sleep(latency.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+        return key + " 의 내용";
+    }
+}
+
 // 기본형 프록시(Normal Proxy)
 class NormalProxy implements ISubject {
     // 대상 객체를 composition
@@ -91,18 +208,55 @@ class NormalProxy implements ISubject {
  *  2. 가끔 필요하지만 **항상 메모리에 적재**되어 있는 무거운 서비스 객체가 있는 경우
  *  3. 이 구현은 실제 객체의 생성에 많은 자원이 소모 되지만 사용 빈도는 낮을 때 쓰는 방식
  *  4. 서비스가 시작될 때 객체를 생성하는 대신에 **객체 초기화가 실제로 필요한 시점에 초기화 될수 있도록 지연** 할 수 있음
+ *  5. if(realSubject == null) 로 검사하면 여러 쓰레드가 동시에 들어와 무거운 객체를 여러번 만들거나 반쯤 생성된 객체를 볼 수 있음
+ *      5-1 LazyRef(CAS 로 생성 권한 선점 + release / acquire 발행)에 맡겨서 생성은 단 한번, 초기화 뒤 읽기 경로는 락 없이 volatile 읽기 한번
+ *  6. preloading() : 프록시를 만들자마자 백그라운드 쓰레드에서 생성을 시작해서 첫 호출자가 생성 시간을 전부 기다리지 않도록 함(워밍업)
+ *      6-1 워밍업 중에 호출이 들어오면 같은 생성 결과를 기다리고, 워밍업이 실패하면 첫 호출자가 다시 생성을 시도
+ *      6-2 sourceCompatibility 17 이라 가상 쓰레드 대신 데몬 플랫폼 쓰레드 사용
  */
-@NoArgsConstructor
 class VirtualProxy implements ISubject {
-    // 대상 객체를 composition
-    private RealSubject realSubject;
+    // 대상 객체를 composition (생성은 LazyRef 가 한번만)
+    private final LazyRef<RealSubject> realSubject;
 
-    public void action() {
-        // 프록시 객체는 실제 요청 -> action(메소드 호출)이 들어 왔을 때 실제 객체 생성
-        if(realSubject == null)
-            realSubject = new RealSubject();
+    VirtualProxy() {
+        this(RealSubject::new);
+    }
 
-        realSubject.action(); // 위임
+    VirtualProxy(Supplier<? extends RealSubject> factory) {
+        this.realSubject = LazyRef.of(factory);
+    }
+
+    static VirtualProxy preloading(Supplier<? extends RealSubject> factory) {
+        VirtualProxy proxy = new VirtualProxy(factory);
+        proxy.preload();
+        return proxy;
+    }
+
+    // 백그라운드에서 미리 생성 시작 (이미 생성 되었거나 다른 쓰레드가 생성 중이면 쓰레드를 만들지 않음)
+    // 확인과 쓰레드 시작 사이에 다른 호출이 생성을 시작하면 워밍업 쓰레드는 그 결과를 기다렸다가 끝남
+    void preload() {
+        if(realSubject.isStarted())
+            return;
+
+        Thread thread = new Thread(() -> {
+            try {
+                realSubject.get();
+            } catch (Throwable ignored) {
+                // Error 나 몰래 던진 checked 예외도 여기서 삼킴 (uncaught handler 로 보내지 않음)
+                // 실패하면 첫 호출자가 다시 생성을 시도하면서 예외를 직접 받음
+            }
+        }, "virtual-proxy-preload");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    boolean isInitialized() {
+        return realSubject.isInitialized();
+    }
+
+    public void action() {
+        // 프록시 객체는 실제 요청 -> action(메소드 호출)이 들어 왔을 때 실제 객체 생성 (preloading 이면 이미 생성 되었거나 생성 중)
+        realSubject.get().action(); // 위임
 
         System.out.println("VirtualProxy -> 프록시 객체 call");
     }
@@ -112,39 +266,67 @@ class VirtualProxy implements ISubject {
  *  1. 프록시가 대상 객체에 대한 자원으로의 엑세스 제어(접근 권한)
  *  2. 특정 클라이언트만 서비스 객체를 사용할 수 있도록 하는 경우
  *  3. 프록시 객체를 통해 클라이언트의 자격 증명이 기준과 일치하는 경우에만 서비스 객체에 요청을 전달할 수 있게 함
+ *  4. 생성 시점에 고정된 boolean 대신 (주체, 작업) 을 AccessGuard 에 물어봄
+ *      4-1 판단 결과는 AccessGuard 가 캐시하므로 호출마다 규칙을 평가하지 않고, 정책은 실행 중에 reload 로 교체
  */
-@AllArgsConstructor
 class ProtectionProxy implements ISubject {
+    static final String ACTION = "action";
+
     // 대상 객체를 composition
-    private RealSubject realSubject;
-    // 접근 권한
-    boolean access;
+    private final ISubject realSubject;
+    // 접근 권한 판단 (여러 프록시가 같은 guard 를 공유)
+    private final AccessGuard guard;
+    // 이 프록시를 쓰는 클라이언트의 자격 증명
+    private final String principal;
 
-    public void action() {
-        if(access) {
-            realSubject.action(); // 위임
+    ProtectionProxy(ISubject realSubject, AccessGuard guard, String principal) {
+        this.realSubject = realSubject;
+        this.guard = guard;
+        this.principal = principal;
+    }
 
-            System.out.println("VirtualProxy -> 프록시 객체 call");
+    public void action() {
+        if(!guard.check(principal, ACTION)) {
+            System.out.println("ProtectionProxy -> 접근 거부 (" + principal + ")");
+            return;
         }
+
+        realSubject.action(); // 위임
+
+        System.out.println("ProtectionProxy -> 프록시 객체 call");
     }
 }
 
 /* 로깅 프록시(Logging Proxy)
  *  1. 대상 객체에 대한 로깅을 추가하려는 경우
  *  2. 프록시는 서비스 메소드를 전달하기 전에 로깅을 하는 기능을 추가하여 재정의
+ *  3. 호출마다 println 을 하면 모든 호출자가 stdout 락에 줄을 서므로, 시작 / 끝 시각과 결과만 ProxyEventLog 링 버퍼에 남기고
+ *     파일 기록은 백그라운드 쓰레드에 맡김 (샘플링에서 빠진 호출은 nanoTime 도 읽지 않고 바로 위임)
  */
-@AllArgsConstructor
 class LoggingProxy implements ISubject {
     // 대상 객체를 composition
-    private RealSubject realSubject;
+    private final ISubject realSubject;
+    private final ProxyEventLog eventLog;
 
-    public void action() {
-        System.out.println("Logging Start");
+    LoggingProxy(ISubject realSubject, ProxyEventLog eventLog) {
+        this.realSubject = realSubject;
+        this.eventLog = eventLog;
+    }
 
-        realSubject.action();
-        System.out.println("LoggingProxy -> 프록시 객체 call");
+    public void action() {
+        if(!eventLog.sampled()) {
+            realSubject.action();
+            return;
+        }
 
-        System.out.println("Logging End");
+        long start = System.nanoTime();
+        byte outcome = ProxyEventLog.ERROR;
+        try {
+            realSubject.action();
+            outcome = ProxyEventLog.OK;
+        } finally {
+            eventLog.record(start, System.nanoTime(), outcome);
+        }
     }
 }
 
@@ -158,6 +340,7 @@ class LoggingProxy implements ISubject {
  * |   (클라이언트)                   |    |    |            (원격대상객체)   |
  * *-------------------------------*    |    *--------------------------*
  * 참고로 프록시를 Stub 이라고 부르며 프록시로부터 전달된 명령을 이해하고 적합한 메소드를 호출해주는 역할을 보조객체를 Skeleton 이라 함.
+ * 구현 -> RemoteProxy (Stub, 파이프라이닝 + 배치 + 연결 풀) 와 RemoteSkeleton (loopback 서버 대역, 왕복 지연을 흉내냄)
  */
 
 
@@ -183,6 +366,7 @@ class LoggingProxy implements ISubject {
  *    |        |  <--  |             캐시                 |  <-- | www.naver.com |
  *    *--------*   4   *---------------------------------*     *---------------*
  *     4. 결과를 반환                        3. www.naver.com 의 내용을 캐시에 보관
+ * 구현 -> CachingProxy (IValueSubject 를 감싸서 TTL, 크기 제한, single-flight, stale-while-revalidate 지원)
  */
 
 
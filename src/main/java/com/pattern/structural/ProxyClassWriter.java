@@ -0,0 +1,407 @@
+package com.pattern.structural;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/* ProxyFactory 가 쓰는 프록시 클래스 바이트코드 생성기 (hidden class 로 정의)
+ * java.lang.reflect.Proxy 는 모든 호출을 InvocationHandler.invoke(proxy, Method, Object[]) 하나로 모으기 때문에
+ * 호출마다 Method 로 핸들러를 찾고 인자를 boxing 해야 함 -> 인터페이스를 직접 구현하는 클래스를 만들어서 메소드 별로 분기를 없앰
+ * 만들어지는 클래스 (인터페이스 I, 메소드 m0 ... mN)
+ *  1. 필드 : I target, ProxyFactory.Invoker[] invokers
+ *  2. 인터셉터가 없는 메소드 : target.mK(인자...) 를 그대로 호출 (손으로 만든 위임 프록시와 같은 코드)
+ *  3. 인터셉터가 있는 메소드 : invokers[K].invoke(target, new Object[]{인자 boxing...}) 의 결과를 unboxing 해서 반환
+ *  4. 체인의 마지막 단계는 메소드 마다 Invoker 를 구현하는 작은 클래스를 따로 만듦 (generateTerminal)
+ *      invoke(Object target, Object[] args) 에서 인자를 unboxing 해서 ((I) target).mK 호출 -> 리플렉션 / MethodHandle 호출 없음
+ *      hidden class 는 이름으로 참조할 수 없으므로 프록시 클래스 안의 정적 메소드 + LambdaMetafactory 대신 별도 클래스로 둠
+ * 분기가 없는 직선 코드만 만들기 때문에 StackMapTable 없이 검증을 통과함
+ * 인터셉터가 선언되지 않은 checked 예외를 던지면 UndeclaredThrowableException 으로 감싸지 않고 그대로 전파됨
+ */
+final class ProxyClassWriter {
+    static final String TARGET = "target";
+    static final String INVOKERS = "invokers";
+
+    private static final String OBJECT = "java/lang/Object";
+    private static final String INVOKER = internalName(ProxyFactory.Invoker.class);
+    private static final String INVOKER_ARRAY = "[" + ProxyFactory.Invoker.class.descriptorString();
+    private static final String INVOKE_DESC = "(Ljava/lang/Object;[Ljava/lang/Object;)Ljava/lang/Object;";
+
+    private final ByteArrayOutputStream poolBytes = new ByteArrayOutputStream();
+    private final DataOutputStream pool = new DataOutputStream(poolBytes);
+    private final Map<String, Integer> constants = new HashMap<>();
+    private int poolCount = 1;
+
+    private ProxyClassWriter() {}
+
+    // intercepted[k] 가 true 인 메소드만 invokers 를 거침
+    static byte[] generate(String className, Class<?> type, List<Method> methods, boolean[] intercepted) {
+        return new ProxyClassWriter().write(className, type, methods, intercepted);
+    }
+
+    // 체인의 마지막 단계 : final class className implements ProxyFactory.Invoker
+    static byte[] generateTerminal(String className, Class<?> type, Method method) {
+        return new ProxyClassWriter().writeTerminal(className, type, method);
+    }
+
+    private byte[] write(String className, Class<?> type, List<Method> methods, boolean[] intercepted) {
+        String iface = internalName(type);
+        String ifaceDesc = type.descriptorString();
+
+        ByteArrayOutputStream bodyBytes = new ByteArrayOutputStream();
+        DataOutputStream body = new DataOutputStream(bodyBytes);
+        try {
+            int thisClass = classRef(className);
+            int superClass = classRef(OBJECT);
+            int ifaceClass = classRef(iface);
+
+            body.writeShort(0x0030);   // ACC_FINAL | ACC_SUPER
+            body.writeShort(thisClass);
+            body.writeShort(superClass);
+            body.writeShort(1);
+            body.writeShort(ifaceClass);
+
+            // 필드
+            body.writeShort(2);
+            writeField(body, TARGET, ifaceDesc);
+            writeField(body, INVOKERS, INVOKER_ARRAY);
+
+            body.writeShort(1 + methods.size());
+            writeConstructor(body, className, iface, ifaceDesc);
+            for(int k = 0; k < methods.size(); k++) {
+                if(intercepted[k])
+                    writeIntercepted(body, className, ifaceDesc, methods.get(k), k);
+                else
+                    writeDirect(body, className, iface, ifaceDesc, methods.get(k));
+            }
+
+            body.writeShort(0);   // 클래스 속성 없음
+            return toClassFile(bodyBytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private byte[] writeTerminal(String className, Class<?> type, Method method) {
+        ByteArrayOutputStream bodyBytes = new ByteArrayOutputStream();
+        DataOutputStream body = new DataOutputStream(bodyBytes);
+        try {
+            int thisClass = classRef(className);
+            int superClass = classRef(OBJECT);
+            int invokerClass = classRef(INVOKER);
+
+            body.writeShort(0x0030);
+            body.writeShort(thisClass);
+            body.writeShort(superClass);
+            body.writeShort(1);
+            body.writeShort(invokerClass);
+            body.writeShort(0);   // 필드 없음
+
+            body.writeShort(2);
+            Code init = new Code();
+            init.op(0x2a);
+            init.op(0xb7).u2(methodRef(OBJECT, "<init>", "()V"));
+            init.op(0xb1);
+            writeMethod(body, 0x0001, "<init>", "()V", init, 1, 1);
+            writeInvoke(body, internalName(type), method);
+
+            body.writeShort(0);
+            return toClassFile(bodyBytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private byte[] toClassFile(ByteArrayOutputStream bodyBytes) throws IOException {
+        ByteArrayOutputStream classBytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(classBytes);
+        out.writeInt(0xCAFEBABE);
+        out.writeShort(0);
+        out.writeShort(61);   // Java 17
+        out.writeShort(poolCount);
+        pool.flush();
+        poolBytes.writeTo(out);
+        bodyBytes.writeTo(out);
+        out.flush();
+        return classBytes.toByteArray();
+    }
+
+    private void writeField(DataOutputStream body, String name, String descriptor) throws IOException {
+        body.writeShort(0x0012);   // ACC_PRIVATE | ACC_FINAL
+        body.writeShort(utf8(name));
+        body.writeShort(utf8(descriptor));
+        body.writeShort(0);
+    }
+
+    // <init>(Object target, Invoker[] invokers)
+    private void writeConstructor(DataOutputStream body, String className, String iface, String ifaceDesc) throws IOException {
+        Code code = new Code();
+        code.op(0x2a);   // aload_0
+        code.op(0xb7).u2(methodRef(OBJECT, "<init>", "()V"));   // invokespecial
+        code.op(0x2a);
+        code.op(0x2b);   // aload_1
+        code.op(0xc0).u2(classRef(iface));   // checkcast
+        code.op(0xb5).u2(fieldRef(className, TARGET, ifaceDesc));   // putfield
+        code.op(0x2a);
+        code.op(0x2c);   // aload_2
+        code.op(0xb5).u2(fieldRef(className, INVOKERS, INVOKER_ARRAY));
+        code.op(0xb1);   // return
+        writeMethod(body, 0x0001, "<init>", "(Ljava/lang/Object;" + INVOKER_ARRAY + ")V", code, 3, 3);
+    }
+
+    // target.m(인자...)
+    private void writeDirect(DataOutputStream body, String className, String iface, String ifaceDesc, Method method) throws IOException {
+        String descriptor = descriptor(method);
+        Code code = new Code();
+        code.op(0x2a);
+        code.op(0xb4).u2(fieldRef(className, TARGET, ifaceDesc));   // getfield
+        int slot = 1;
+        for(Class<?> parameter : method.getParameterTypes()) {
+            code.load(parameter, slot);
+            slot += slots(parameter);
+        }
+        code.op(0xb9).u2(interfaceMethodRef(iface, method.getName(), descriptor)).u1(slot).u1(0);   // invokeinterface
+        code.returns(method.getReturnType());
+        writeMethod(body, 0x0001, method.getName(), descriptor, code, slot + 2, slot);
+    }
+
+    // invokers[k].invoke(target, new Object[]{인자...}) -> unboxing
+    private void writeIntercepted(DataOutputStream body, String className, String ifaceDesc, Method method, int k) throws IOException {
+        Class<?>[] parameters = method.getParameterTypes();
+        Code code = new Code();
+        code.op(0x2a);
+        code.op(0xb4).u2(fieldRef(className, INVOKERS, INVOKER_ARRAY));
+        code.push(k);
+        code.op(0x32);   // aaload
+        code.op(0x2a);
+        code.op(0xb4).u2(fieldRef(className, TARGET, ifaceDesc));
+        code.push(parameters.length);
+        code.op(0xbd).u2(classRef(OBJECT));   // anewarray
+        int slot = 1;
+        for(int j = 0; j < parameters.length; j++) {
+            code.op(0x59);   // dup
+            code.push(j);
+            code.load(parameters[j], slot);
+            code.box(parameters[j]);
+            code.op(0x53);   // aastore
+            slot += slots(parameters[j]);
+        }
+        code.op(0xb9).u2(interfaceMethodRef(INVOKER, "invoke", INVOKE_DESC)).u1(3).u1(0);
+        code.unbox(method.getReturnType());
+        code.returns(method.getReturnType());
+        writeMethod(body, 0x0001, method.getName(), descriptor(method), code, 8, slot);
+    }
+
+    // Object invoke(Object target, Object[] args)
+    private void writeInvoke(DataOutputStream body, String iface, Method method) throws IOException {
+        Class<?>[] parameters = method.getParameterTypes();
+        Code code = new Code();
+        code.op(0x2b);   // aload_1
+        code.op(0xc0).u2(classRef(iface));
+        int slots = 1;
+        for(int j = 0; j < parameters.length; j++) {
+            code.op(0x2c);   // aload_2
+            code.push(j);
+            code.op(0x32);
+            code.unbox(parameters[j]);
+            slots += slots(parameters[j]);
+        }
+        code.op(0xb9).u2(interfaceMethodRef(iface, method.getName(), descriptor(method))).u1(slots).u1(0);
+        Class<?> returnType = method.getReturnType();
+        if(returnType == void.class)
+            code.op(0x01);   // aconst_null
+        else
+            code.box(returnType);
+        code.op(0xb0);   // areturn
+        writeMethod(body, 0x0001, "invoke", INVOKE_DESC, code, slots + 3, 3);
+    }
+
+    private void writeMethod(DataOutputStream body, int access, String name, String descriptor, Code code, int maxStack, int maxLocals) throws IOException {
+        byte[] bytecode = code.toByteArray();
+        body.writeShort(access);
+        body.writeShort(utf8(name));
+        body.writeShort(utf8(descriptor));
+        body.writeShort(1);
+        body.writeShort(utf8("Code"));
+        body.writeInt(12 + bytecode.length);
+        body.writeShort(maxStack);
+        body.writeShort(maxLocals);
+        body.writeInt(bytecode.length);
+        body.write(bytecode);
+        body.writeShort(0);   // exception table
+        body.writeShort(0);   // 속성 없음
+    }
+
+    // 상수 풀 (같은 상수는 한번만)
+    private int utf8(String value) {
+        return constant("U" + value, out -> {
+            out.writeByte(1);
+            out.writeUTF(value);
+        });
+    }
+
+    private int classRef(String internalName) {
+        int name = utf8(internalName);
+        return constant("C" + internalName, out -> {
+            out.writeByte(7);
+            out.writeShort(name);
+        });
+    }
+
+    private int nameAndType(String name, String descriptor) {
+        int n = utf8(name);
+        int d = utf8(descriptor);
+        return constant("N" + name + ":" + descriptor, out -> {
+            out.writeByte(12);
+            out.writeShort(n);
+            out.writeShort(d);
+        });
+    }
+
+    private int fieldRef(String owner, String name, String descriptor) {
+        return memberRef(9, owner, name, descriptor);
+    }
+
+    private int methodRef(String owner, String name, String descriptor) {
+        return memberRef(10, owner, name, descriptor);
+    }
+
+    private int interfaceMethodRef(String owner, String name, String descriptor) {
+        return memberRef(11, owner, name, descriptor);
+    }
+
+    private int memberRef(int tag, String owner, String name, String descriptor) {
+        int c = classRef(owner);
+        int nt = nameAndType(name, descriptor);
+        return constant(tag + owner + "." + name + ":" + descriptor, out -> {
+            out.writeByte(tag);
+            out.writeShort(c);
+            out.writeShort(nt);
+        });
+    }
+
+    private int constant(String key, PoolEntry entry) {
+        Integer index = constants.get(key);
+        if(index != null)
+            return index;
+
+        try {
+            entry.writeTo(pool);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        constants.put(key, poolCount);
+        return poolCount++;
+    }
+
+    @FunctionalInterface
+    private interface PoolEntry {
+        void writeTo(DataOutputStream out) throws IOException;
+    }
+
+    static String internalName(Class<?> type) {
+        return type.getName().replace('.', '/');
+    }
+
+    private static String descriptor(Method method) {
+        return MethodType.methodType(method.getReturnType(), method.getParameterTypes()).toMethodDescriptorString();
+    }
+
+    private static int slots(Class<?> type) {
+        return type == long.class || type == double.class ? 2 : 1;
+    }
+
+    // 메소드 본문 (명령어 바이트)
+    private final class Code {
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        Code op(int opcode) {
+            bytes.write(opcode);
+            return this;
+        }
+
+        Code u1(int value) {
+            bytes.write(value);
+            return this;
+        }
+
+        Code u2(int value) {
+            bytes.write(value >>> 8);
+            bytes.write(value);
+            return this;
+        }
+
+        void push(int value) {
+            if(value <= 5)
+                op(0x03 + value);   // iconst_n
+            else if(value <= Byte.MAX_VALUE)
+                op(0x10).u1(value);   // bipush
+            else
+                op(0x11).u2(value);   // sipush
+        }
+
+        void load(Class<?> type, int slot) {
+            int opcode;
+            if(type == long.class)
+                opcode = 0x16;
+            else if(type == float.class)
+                opcode = 0x17;
+            else if(type == double.class)
+                opcode = 0x18;
+            else if(type.isPrimitive())
+                opcode = 0x15;
+            else
+                opcode = 0x19;
+            op(opcode).u1(slot);
+        }
+
+        void returns(Class<?> type) {
+            if(type == void.class)
+                op(0xb1);
+            else if(type == long.class)
+                op(0xad);
+            else if(type == float.class)
+                op(0xae);
+            else if(type == double.class)
+                op(0xaf);
+            else if(type.isPrimitive())
+                op(0xac);
+            else
+                op(0xb0);
+        }
+
+        // 기본형 -> Wrapper.valueOf
+        void box(Class<?> type) {
+            if(!type.isPrimitive())
+                return;
+            String wrapper = internalName(wrapper(type));
+            op(0xb8).u2(methodRef(wrapper, "valueOf", "(" + type.descriptorString() + ")L" + wrapper + ";"));
+        }
+
+        // Object -> 기본형 (Wrapper.xxxValue) 또는 참조형 checkcast, void 면 결과를 버림
+        void unbox(Class<?> type) {
+            if(type == void.class) {
+                op(0x57);   // pop
+            } else if(type.isPrimitive()) {
+                String wrapper = internalName(wrapper(type));
+                op(0xc0).u2(classRef(wrapper));
+                op(0xb6).u2(methodRef(wrapper, type.getName() + "Value", "()" + type.descriptorString()));
+            } else if(type != Object.class) {
+                op(0xc0).u2(classRef(type.isArray() ? type.descriptorString() : internalName(type)));
+            }
+        }
+
+        byte[] toByteArray() {
+            return bytes.toByteArray();
+        }
+    }
+
+    private static Class<?> wrapper(Class<?> type) {
+        return MethodType.methodType(type).wrap().returnType();
+    }
+}
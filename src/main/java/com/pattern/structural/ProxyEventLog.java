@@ -0,0 +1,229 @@
+package com.pattern.structural;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/* 프록시 호출 이벤트 로그 (LoggingProxy 용 링 버퍼 + 백그라운드 파일 기록)
+ * System.out.println 은 호출마다 stdout 락을 잡고 문자열을 만들기 때문에 모든 호출자가 줄을 서게 됨
+ *  1. 미리 할당한 링 버퍼(구조체 대신 필드별 배열)에 시작 / 끝 nanoTime, 쓰레드 id, 결과(OK / ERROR)만 기록 -> 호출자 경로에 객체 생성 없음
+ *  2. 생산자(호출자) : head 를 CAS 로 한칸 선점 -> 칸에 값 기록 -> sequences[칸] 에 순번을 setRelease 로 발행
+ *      2-1 소비자가 아직 비우지 못해 버퍼가 가득 차면 기다리지 않고 버림(drop-on-full), 버린 수만 셈
+ *  3. 소비자 : 쓰레드 하나가 발행된 칸을 순서대로 읽어 JSON 한줄로 ByteBuffer 에 모았다가 가득 차거나 더 읽을게 없을 때 FileChannel 에 한번에 씀
+ *      3-1 읽을게 없으면 잠깐 park (생산자는 소비자를 깨우지 않음 -> 호출자 경로에 unpark 비용 없음)
+ *  4. sampleEvery : N 번 중 한번 꼴로만 기록 (ThreadLocalRandom 으로 판단, 1 이면 모두 기록)
+ *  5. 소비자가 멈추면(close 후 다 비웠거나 쓰기 실패) head 에 STOPPED 비트를 CAS 로 세움 -> 그 뒤로는 생산자가 칸을 선점할 수 없고 dropped 로 셈
+ *      5-1 closed 를 확인한 직후 close() 가 불려도 선점에 실패하므로 기록되지 않는 이벤트는 모두 dropped 에 포함
+ *  6. 파일 쓰기가 실패하면 예외를 failure() 로 남기고, 아직 파일에 쓰지 못한 이벤트를 dropped 로 셈 (이후 기록은 모두 버림)
+ * close() 는 남은 이벤트를 모두 파일에 쓰고 닫음, 쓰기가 실패했었다면 그 예외를 UncheckedIOException 으로 던짐
+ */
+final class ProxyEventLog implements AutoCloseable {
+    static final byte OK = 0;
+    static final byte ERROR = 1;
+
+    private static final VarHandle SEQUENCES = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final long PARK_NANOS = 1_000_000;
+    private static final int BATCH_BYTES = 64 * 1024;
+    private static final int MAX_LINE_BYTES = 128;
+    private static final long STOPPED = Long.MIN_VALUE;   // head 의 부호 비트 (순번은 항상 0 이상)
+
+    private final int mask;
+    private final int sampleMask;
+
+    // 칸 별 필드 (sequences[칸] == 순번 이면 발행된 상태)
+    private final long[] sequences;
+    private final long[] startNanos;
+    private final long[] endNanos;
+    private final long[] threadIds;
+    private final byte[] outcomes;
+
+    private final AtomicLong head = new AtomicLong();   // 다음에 선점할 순번 (소비자가 멈추면 STOPPED 비트가 섬)
+    private final AtomicLong tail = new AtomicLong();   // 소비자가 다음에 읽을 순번
+
+    private final LongAdder dropped = new LongAdder();
+    private volatile long written;
+    private volatile boolean closed;
+    private volatile IOException failure;
+
+    private final FileChannel channel;
+    private final Thread drainer;
+
+    private ProxyEventLog(FileChannel channel, int capacity, int sampleEvery) {
+        this.channel = channel;
+        this.mask = capacity - 1;
+        this.sampleMask = sampleEvery - 1;
+
+        sequences = new long[capacity];
+        startNanos = new long[capacity];
+        endNanos = new long[capacity];
+        threadIds = new long[capacity];
+        outcomes = new byte[capacity];
+        for(int i = 0; i < capacity; i++)
+            sequences[i] = i - capacity;   // 아직 발행되지 않은 상태
+
+        drainer = new Thread(this::drain, "proxy-event-log");
+        drainer.setDaemon(true);
+        drainer.start();
+    }
+
+    // capacity, sampleEvery 는 2 의 거듭제곱 (나머지 연산 대신 마스크 사용)
+    static ProxyEventLog open(Path file, int capacity, int sampleEvery) throws IOException {
+        if(Integer.bitCount(capacity) != 1 || Integer.bitCount(sampleEvery) != 1)
+            throw new IllegalArgumentException("capacity / sampleEvery 는 2 의 거듭제곱 -> " + capacity + " / " + sampleEvery);
+
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        return new ProxyEventLog(channel, capacity, sampleEvery);
+    }
+
+    // 이번 호출을 기록할지 (기록하지 않으면 nanoTime 도 읽지 않음)
+    boolean sampled() {
+        return sampleMask == 0 || (ThreadLocalRandom.current().nextInt() & sampleMask) == 0;
+    }
+
+    void record(long start, long end, byte outcome) {
+        if(closed) {
+            dropped.increment();
+            return;
+        }
+
+        long sequence;
+        do {
+            sequence = head.get();
+            if(sequence < 0 || sequence - tail.get() > mask) {
+                dropped.increment();
+                return;
+            }
+        } while(!head.compareAndSet(sequence, sequence + 1));
+
+        int slot = (int) sequence & mask;
+        startNanos[slot] = start;
+        endNanos[slot] = end;
+        threadIds[slot] = Thread.currentThread().getId();
+        outcomes[slot] = outcome;
+        SEQUENCES.setRelease(sequences, slot, sequence);
+    }
+
+    long dropped() {
+        return dropped.sum();
+    }
+
+    // 파일에 쓴 이벤트 수
+    long written() {
+        return written;
+    }
+
+    // 파일 쓰기 실패 (없으면 null)
+    IOException failure() {
+        return failure;
+    }
+
+    public void close() {
+        closed = true;
+        LockSupport.unpark(drainer);
+        try {
+            drainer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        IOException failure = this.failure;
+        if(failure != null)
+            throw new UncheckedIOException("이벤트 로그 쓰기 실패 (버린 이벤트 " + dropped() + " 건)", failure);
+    }
+
+    private void drain() {
+        ByteBuffer batch = ByteBuffer.allocateDirect(BATCH_BYTES);
+        try(FileChannel out = channel) {
+            while(true) {
+                boolean stopping = closed;   // closed 를 먼저 읽어야 그 전에 발행된 이벤트를 놓치지 않음
+                long first = tail.get();
+                long next = first;
+
+                while((long) SEQUENCES.getAcquire(sequences, (int) next & mask) == next) {
+                    int slot = (int) next & mask;
+                    if(batch.remaining() < MAX_LINE_BYTES) {
+                        flush(out, batch);
+                        written = next;   // 순번 next 앞까지 파일에 씀 (tail 과 같이 0 부터 셈)
+                    }
+                    append(batch, slot);
+
+                    next++;
+                    tail.lazySet(next);   // 칸을 비웠으니 생산자가 다시 쓸 수 있음
+                }
+
+                if(next > first) {
+                    flush(out, batch);
+                    written = next;
+                } else if(stopping && head.compareAndSet(next, next | STOPPED)) {
+                    return;   // 그 사이에 선점된 칸이 있으면 CAS 가 실패하므로 마저 비움
+                } else {
+                    LockSupport.parkNanos(PARK_NANOS);
+                }
+            }
+        } catch (IOException e) {
+            failure = e;
+            // 더 이상 선점하지 못하게 막고, 선점 되었지만 파일에 쓰지 못한 이벤트를 버린 것으로 셈
+            long claimed = head.getAndUpdate(sequence -> sequence | STOPPED) & ~STOPPED;
+            dropped.add(claimed - written);
+        }
+    }
+
+    // {"start":..,"end":..,"durationNanos":..,"thread":..,"outcome":"OK"}
+    private void append(ByteBuffer batch, int slot) {
+        putAscii(batch, "{\"start\":");
+        putLong(batch, startNanos[slot]);
+        putAscii(batch, ",\"end\":");
+        putLong(batch, endNanos[slot]);
+        putAscii(batch, ",\"durationNanos\":");
+        putLong(batch, endNanos[slot] - startNanos[slot]);
+        putAscii(batch, ",\"thread\":");
+        putLong(batch, threadIds[slot]);
+        putAscii(batch, outcomes[slot] == OK ? ",\"outcome\":\"OK\"}\n" : ",\"outcome\":\"ERROR\"}\n");
+    }
+
+    private static void putAscii(ByteBuffer batch, String text) {
+        for(int i = 0; i < text.length(); i++)
+            batch.put((byte) text.charAt(i));
+    }
+
+    // Long.toString 없이 자리수 그대로 기록 (소비자 쪽도 문자열을 만들지 않음)
+    private static void putLong(ByteBuffer batch, long value) {
+        if(value < 0) {
+            batch.put((byte) '-');
+            if(value == Long.MIN_VALUE) {
+                putAscii(batch, "9223372036854775808");
+                return;
+            }
+            value = -value;
+        }
+
+        int start = batch.position();
+        do {
+            batch.put((byte) ('0' + value % 10));
+            value /= 10;
+        } while(value != 0);
+
+        // 뒤집힌 자리수를 제자리에서 뒤집음
+        for(int i = start, j = batch.position() - 1; i < j; i++, j--) {
+            byte digit = batch.get(i);
+            batch.put(i, batch.get(j));
+            batch.put(j, digit);
+        }
+    }
+
+    private static void flush(FileChannel out, ByteBuffer batch) throws IOException {
+        batch.flip();
+        while(batch.hasRemaining())
+            out.write(batch);
+        batch.clear();
+    }
+}
@@ -0,0 +1,282 @@
+package com.pattern.structural;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/* 범용 프록시 팩토리 (인터페이스 + 인터셉터 체인)
+ * LoggingProxy, CachingProxy, ProtectionProxy 처럼 인터페이스 마다 프록시 클래스를 손으로 만드는 대신
+ * 어떤 인터페이스든 인터셉터(로깅, 캐싱, 접근 제어, 시간 측정 ...) 를 끼워 넣은 프록시를 만들어 줌
+ * java.lang.reflect.Proxy 는 모든 호출이 InvocationHandler 하나로 모여 호출마다 Method 로 분기하고 Method.invoke 로 대상을 호출함
+ *  1. 빌드 시점 : 인터페이스의 메소드마다 적용할 인터셉터를 골라서 체인(Invoker)을 미리 연결해 둠 -> 메소드 별 핸들러 테이블(invokers 배열)
+ *  2. 인터페이스를 직접 구현하는 프록시 클래스를 hidden class 로 생성 (ProxyClassWriter)
+ *      2-1 인터셉터가 없는 메소드는 target.m(...) 을 그대로 호출 -> 손으로 만든 위임 프록시와 같은 코드
+ *      2-2 인터셉터가 있는 메소드는 invokers[k] 를 바로 꺼내 호출 (Method 로 찾는 과정 없음)
+ *      2-3 체인의 끝도 메소드 마다 생성한 Invoker 구현 클래스 (인자를 unboxing 해서 target.m(...) 호출, 리플렉션 / MethodHandle 호출 없음)
+ *  3. 인터셉터는 다음 체인(next) 을 직접 받으므로 호출마다 Invocation 같은 객체를 만들지 않음
+ * 프록시 클래스는 이 패키지에 정의되므로 인터페이스는 public 이거나 이 패키지 안에 있어야 함
+ * equals / hashCode / toString 은 Object 의 것을 그대로 사용 (프록시 객체 자신의 identity 기준)
+ */
+final class ProxyFactory<T> {
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    private static final String CLASS_NAME = ProxyClassWriter.internalName(ProxyFactory.class) + "$Generated";
+    private static final String TERMINAL_NAME = CLASS_NAME + "$Terminal";
+
+    private final MethodHandle constructor;   // (Object, Invoker[])Object
+    private final Invoker[] invokers;
+
+    private ProxyFactory(MethodHandle constructor, Invoker[] invokers) {
+        this.constructor = constructor;
+        this.invokers = invokers;
+    }
+
+    static <T> Builder<T> builder(Class<T> type) {
+        return new Builder<>(type);
+    }
+
+    // 같은 팩토리로 만든 프록시들은 클래스와 핸들러 테이블을 공유 (대상 객체만 다름)
+    @SuppressWarnings("unchecked")
+    T create(T target) {
+        Objects.requireNonNull(target, "target");
+        try {
+            return (T) constructor.invokeExact((Object) target, invokers);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // 인터셉터 : next.invoke(target, args) 로 다음 단계(또는 대상)를 호출, 호출하지 않으면 대상까지 가지 않음
+    @FunctionalInterface
+    interface Interceptor {
+        Object intercept(ProxyMethod method, Object target, Object[] args, Invoker next) throws Throwable;
+    }
+
+    @FunctionalInterface
+    interface Invoker {
+        Object invoke(Object target, Object[] args) throws Throwable;
+    }
+
+    // 인터셉터에게 넘겨주는 메소드 정보 (index 는 invokers 배열에서의 위치, 인터셉터가 메소드 별 상태를 배열로 둘 때 사용)
+    record ProxyMethod(Method method, int index) {
+        String name() {
+            return method.getName();
+        }
+
+        boolean returnsVoid() {
+            return method.getReturnType() == void.class;
+        }
+
+        @Override
+        public String toString() {
+            return method.getDeclaringClass().getSimpleName() + "." + method.getName();
+        }
+    }
+
+    static final class Builder<T> {
+        private final Class<T> type;
+        private final List<Predicate<Method>> selectors = new ArrayList<>();
+        private final List<Interceptor> interceptors = new ArrayList<>();
+
+        private Builder(Class<T> type) {
+            if(!type.isInterface())
+                throw new IllegalArgumentException("인터페이스만 프록시 할 수 있음 -> " + type.getName());
+            try {
+                LOOKUP.accessClass(type);
+            } catch (IllegalAccessException e) {
+                throw new IllegalArgumentException("이 패키지에서 접근할 수 없는 인터페이스 -> " + type.getName(), e);
+            }
+            this.type = type;
+        }
+
+        // 먼저 추가한 인터셉터가 바깥쪽 (먼저 실행되고 가장 나중에 끝남)
+        Builder<T> intercept(Interceptor interceptor) {
+            return intercept(method -> true, interceptor);
+        }
+
+        // selector 를 만족하는 메소드에만 적용
+        Builder<T> intercept(Predicate<Method> selector, Interceptor interceptor) {
+            selectors.add(Objects.requireNonNull(selector, "selector"));
+            interceptors.add(Objects.requireNonNull(interceptor, "interceptor"));
+            return this;
+        }
+
+        ProxyFactory<T> build() {
+            // 여러 상위 인터페이스에서 같은 시그니처가 오면 하나만 구현
+            Map<String, Method> unique = new LinkedHashMap<>();
+            for(Method method : type.getMethods()) {
+                if(!Modifier.isStatic(method.getModifiers()))
+                    unique.putIfAbsent(method.getName() + MethodType.methodType(method.getReturnType(), method.getParameterTypes()).toMethodDescriptorString(), method);
+            }
+            List<Method> methods = new ArrayList<>(unique.values());
+
+            boolean[] intercepted = new boolean[methods.size()];
+            for(int k = 0; k < methods.size(); k++) {
+                for(Predicate<Method> selector : selectors)
+                    intercepted[k] |= selector.test(methods.get(k));
+            }
+
+            try {
+                byte[] bytes = ProxyClassWriter.generate(CLASS_NAME, type, methods, intercepted);
+                MethodHandles.Lookup generated = LOOKUP.defineHiddenClass(bytes, true);
+
+                Invoker[] invokers = new Invoker[methods.size()];
+                for(int k = 0; k < methods.size(); k++) {
+                    if(!intercepted[k])
+                        continue;
+
+                    ProxyMethod proxyMethod = new ProxyMethod(methods.get(k), k);
+                    Invoker chain = terminal(proxyMethod.method());
+                    for(int i = interceptors.size() - 1; i >= 0; i--) {
+                        if(selectors.get(i).test(proxyMethod.method()))
+                            chain = link(interceptors.get(i), proxyMethod, chain);
+                    }
+                    invokers[k] = chain;
+                }
+
+                MethodHandle constructor = generated.findConstructor(generated.lookupClass(), MethodType.methodType(void.class, Object.class, Invoker[].class))
+                        .asType(MethodType.methodType(Object.class, Object.class, Invoker[].class));
+                return new ProxyFactory<>(constructor, invokers);
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException(type.getName() + " 프록시 클래스 생성 실패", e);
+            }
+        }
+
+        // 체인의 마지막 단계 (생성된 Invoker 구현 클래스)
+        private static Invoker terminal(Method method) throws ReflectiveOperationException {
+            byte[] bytes = ProxyClassWriter.generateTerminal(TERMINAL_NAME, method.getDeclaringClass(), method);
+            Class<?> terminalClass = LOOKUP.defineHiddenClass(bytes, true).lookupClass();
+            return (Invoker) terminalClass.getDeclaredConstructor().newInstance();
+        }
+
+        private static Invoker link(Interceptor interceptor, ProxyMethod method, Invoker next) {
+            return (target, args) -> interceptor.intercept(method, target, args, next);
+        }
+    }
+}
+
+/* 기본 인터셉터 모음 (기존 손으로 만든 프록시들의 일반화)
+ *  1. logging : LoggingProxy 처럼 호출 전 / 후 기록
+ *  2. timing : 호출 시간(nanos) 을 sink 로 전달
+ *  3. accessControl : ProtectionProxy 처럼 권한이 없으면 대상까지 가지 않음 (SecurityException)
+ *      3-1 AccessGuard 를 넘기면 (현재 주체, 메소드 이름) 으로 판단
+ *  4. caching : CachingProxy 를 메소드 마다 하나씩 두고 (대상 객체, 인자 목록) 을 키로 결과를 캐시 (void 메소드는 그대로 통과)
+ */
+final class Interceptors {
+    private Interceptors() {}
+
+    static ProxyFactory.Interceptor logging(Consumer<String> sink) {
+        return (method, target, args, next) -> {
+            sink.accept(method + " start " + Arrays.toString(args));
+            try {
+                Object result = next.invoke(target, args);
+                sink.accept(method + " end -> " + result);
+                return result;
+            } catch (Throwable e) {
+                sink.accept(method + " failed -> " + e);
+                throw e;
+            }
+        };
+    }
+
+    static ProxyFactory.Interceptor timing(BiConsumer<ProxyFactory.ProxyMethod, Long> sink) {
+        return (method, target, args, next) -> {
+            long start = System.nanoTime();
+            try {
+                return next.invoke(target, args);
+            } finally {
+                sink.accept(method, System.nanoTime() - start);
+            }
+        };
+    }
+
+    static ProxyFactory.Interceptor accessControl(BooleanSupplier allowed) {
+        return (method, target, args, next) -> {
+            if(!allowed.getAsBoolean())
+                throw new SecurityException("접근 권한 없음 -> " + method);
+            return next.invoke(target, args);
+        };
+    }
+
+    static ProxyFactory.Interceptor accessControl(AccessGuard guard, Supplier<String> principal) {
+        return (method, target, args, next) -> {
+            String current = principal.get();
+            if(!guard.check(current, method.name()))
+                throw new SecurityException("접근 권한 없음 -> " + current + " " + method);
+            return next.invoke(target, args);
+        };
+    }
+
+    // cacheBuilder 로 메소드 별 CachingProxy 를 만듦 (TTL, 크기 제한, single-flight 를 그대로 사용)
+    static ProxyFactory.Interceptor caching(Supplier<CachingProxy.Builder> cacheBuilder) {
+        Map<ProxyFactory.ProxyMethod, CachingProxy<CallKey, Object>> caches = new ConcurrentHashMap<>();
+        return (method, target, args, next) -> {
+            if(method.returnsVoid())
+                return next.invoke(target, args);
+
+            CachingProxy<CallKey, Object> cache = caches.computeIfAbsent(method, m -> cacheBuilder.get().build(CallKey::call));
+            try {
+                Object result = cache.request(new CallKey(target, args, next));
+                return result == CallKey.NULL ? null : result;
+            } catch (CompletionException e) {
+                throw e.getCause();   // 대상이 던진 checked 예외
+            }
+        };
+    }
+
+    // 캐시 키 : 대상 객체(identity) + 인자 목록, next 는 미스일 때 대상을 호출하기 위해서만 들고 있음
+    private static final class CallKey {
+        static final Object NULL = new Object();   // CachingProxy 는 null 을 캐시하지 않으므로 대신 저장
+
+        final Object target;
+        final Object[] args;
+        final ProxyFactory.Invoker next;
+
+        CallKey(Object target, Object[] args, ProxyFactory.Invoker next) {
+            this.target = target;
+            this.args = args.clone();
+            this.next = next;
+        }
+
+        Object call() {
+            try {
+                Object result = next.invoke(target, args);
+                return result == null ? NULL : result;
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new CompletionException(e);
+            }
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if(!(o instanceof CallKey))
+                return false;
+            CallKey other = (CallKey) o;
+            return target == other.target && Arrays.deepEquals(args, other.args);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(target) + Arrays.deepHashCode(args);
+        }
+    }
+}
@@ -0,0 +1,446 @@
+package com.pattern.structural;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/* 원격 프록시 (Stub) : ISubject 호출을 SocketChannel 로 RemoteSkeleton 에 보냄
+ * 원격 호출은 호출마다 왕복(round trip) 시간이 대부분이므로 호출 하나씩 보내고 응답을 기다리면 처리량이 1 / 왕복시간 으로 묶임
+ *  1. 파이프라이닝 : 응답을 기다리지 않고 다음 요청을 보냄, 요청마다 id 를 붙이고 응답의 id 로 기다리던 future 를 찾아 완료
+ *  2. 배치 : 연결마다 writer 쓰레드 하나가 outbound 큐에 쌓인 호출을 최대 maxBatch 개까지 꺼내 프레임 하나로 보냄
+ *      2-1 앞의 프레임을 쓰는 동안 들어온 호출이 다음 프레임에 모이므로 따로 기다리는 시간(linger) 없이 부하가 높을수록 배치가 커짐
+ *  3. 연결 풀 : 연결 poolSize 개를 라운드 로빈으로 사용 (연결 하나의 writer / reader 쓰레드가 병목이 되지 않도록)
+ *  4. outbound 큐는 크기 제한이 있어서 가득 차면 호출자가 기다림 (보내지 못한 요청이 메모리에 무한히 쌓이지 않음)
+ *  5. 연결이 끊기면 그 연결에서 기다리던 호출과 아직 보내지 않은 호출은 모두 예외로 완료
+ * 프레임 -> [int 길이][본문], 요청 본문 -> ([long id][byte op])*, 응답 본문 -> ([long id][byte status][실패면 short 길이 + 메세지])*
+ *  프레임 본문은 RemoteWire.MAX_FRAME_BYTES 까지 -> maxBatch 는 RemoteWire.MAX_BATCH 로 잘라 쓰고, 응답이 넘치면 skeleton 이 여러 프레임으로 나눠 보냄
+ * action() 은 응답을 기다리는 동기 호출, actionAsync() 는 응답을 기다리지 않는 호출 (여러 개를 보내두고 나중에 한번에 기다림)
+ * 소켓 파일을 만들고 지울 필요가 없도록 Unix domain 소켓 대신 loopback TCP(TCP_NODELAY) 를 사용 -> 한 머신에서 네트워크 없이 실행
+ */
+final class RemoteProxy implements ISubject, AutoCloseable {
+
+    private final Connection[] connections;
+    private final AtomicInteger next = new AtomicInteger();
+
+    private RemoteProxy(Connection[] connections) {
+        this.connections = connections;
+    }
+
+    static RemoteProxy connect(SocketAddress address, int poolSize, int maxBatch) throws IOException {
+        if(poolSize <= 0 || maxBatch <= 0)
+            throw new IllegalArgumentException("poolSize / maxBatch 는 0 보다 커야 함 -> " + poolSize + " / " + maxBatch);
+        maxBatch = Math.min(maxBatch, RemoteWire.MAX_BATCH);   // 더 크면 skeleton 이 프레임을 거부하고 연결을 끊음
+
+        Connection[] connections = new Connection[poolSize];
+        try {
+            for(int i = 0; i < poolSize; i++)
+                connections[i] = new Connection(address, maxBatch, i);
+        } catch (IOException e) {
+            for(Connection connection : connections) {
+                if(connection != null)
+                    connection.close();
+            }
+            throw e;
+        }
+        return new RemoteProxy(connections);
+    }
+
+    public void action() {
+        try {
+            actionAsync().join();
+        } catch (CompletionException e) {
+            if(e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            throw e;
+        }
+    }
+
+    CompletableFuture<Void> actionAsync() {
+        Connection connection = connections[Math.floorMod(next.getAndIncrement(), connections.length)];
+        return connection.submit();
+    }
+
+    // 보낸 프레임 수와 호출 수 (호출 수 / 프레임 수 -> 평균 배치 크기)
+    long framesSent() {
+        long frames = 0;
+        for(Connection connection : connections)
+            frames += connection.framesSent;
+        return frames;
+    }
+
+    long callsSent() {
+        long calls = 0;
+        for(Connection connection : connections)
+            calls += connection.callsSent;
+        return calls;
+    }
+
+    public void close() {
+        for(Connection connection : connections)
+            connection.close();
+    }
+
+    // 연결 하나 : writer 쓰레드(배치 + 전송), reader 쓰레드(응답 -> future 완료)
+    private static final class Connection {
+        private static final int MAX_PENDING = 4096;
+
+        private final SocketChannel channel;
+        private final int maxBatch;
+        private final BlockingQueue<CompletableFuture<Void>> outbound = new LinkedBlockingQueue<>(MAX_PENDING);
+        private final Map<Long, CompletableFuture<Void>> inFlight = new ConcurrentHashMap<>();
+        private final Thread writer;
+        private final Thread reader;
+
+        private volatile RuntimeException failure;
+        private volatile long framesSent;   // writer 쓰레드만 기록
+        private volatile long callsSent;
+
+        Connection(SocketAddress address, int maxBatch, int index) throws IOException {
+            this.channel = SocketChannel.open(address);
+            try {
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            } catch (IOException | RuntimeException e) {
+                channel.close();
+                throw e;
+            }
+            this.maxBatch = maxBatch;
+
+            writer = new Thread(this::write, "remote-proxy-writer-" + index);
+            reader = new Thread(this::read, "remote-proxy-reader-" + index);
+            writer.setDaemon(true);
+            reader.setDaemon(true);
+            writer.start();
+            reader.start();
+        }
+
+        CompletableFuture<Void> submit() {
+            CompletableFuture<Void> call = new CompletableFuture<>();
+            if(failure != null) {
+                call.completeExceptionally(failure);
+                return call;
+            }
+
+            try {
+                outbound.put(call);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                call.completeExceptionally(e);
+                return call;
+            }
+
+            // put 과 fail 이 겹쳤다면 fail 이 비운 뒤에 들어간 호출일 수 있으므로 다시 비움
+            if(failure != null)
+                failPending();
+            return call;
+        }
+
+        private void write() {
+            List<CompletableFuture<Void>> batch = new ArrayList<>();
+            long nextId = 0;
+            try {
+                ByteBuffer frame = ByteBuffer.allocateDirect(Integer.BYTES + maxBatch * RemoteWire.REQUEST_BYTES);
+                while(true) {
+                    batch.add(outbound.take());
+                    outbound.drainTo(batch, maxBatch - 1);
+
+                    frame.clear();
+                    frame.putInt(batch.size() * RemoteWire.REQUEST_BYTES);
+                    for(CompletableFuture<Void> call : batch) {
+                        long id = nextId++;
+                        inFlight.put(id, call);   // 응답보다 먼저 등록되어야 함
+                        frame.putLong(id).put(RemoteWire.ACTION);
+                    }
+                    frame.flip();
+                    while(frame.hasRemaining())
+                        channel.write(frame);
+
+                    framesSent++;
+                    callsSent += batch.size();
+                    batch.clear();
+                }
+            } catch (IOException e) {
+                fail(new UncheckedIOException(e));
+            } catch (InterruptedException e) {
+                fail(new IllegalStateException("연결이 닫힘"));
+            } catch (RuntimeException e) {
+                fail(e);
+            } finally {
+                // Error 로 빠져나와도 기다리는 호출자가 멈추지 않도록 연결을 실패로 닫음
+                if(failure == null)
+                    fail(new IllegalStateException("writer 쓰레드가 멈춤"));
+                for(CompletableFuture<Void> call : batch)
+                    call.completeExceptionally(failure);
+            }
+        }
+
+        private void read() {
+            try {
+                while(true) {
+                    ByteBuffer payload = RemoteWire.readFrame(channel);
+                    while(payload.hasRemaining()) {
+                        long id = payload.getLong();
+                        byte status = payload.get();
+                        String message = status == RemoteWire.OK ? null : RemoteWire.getString(payload);
+                        CompletableFuture<Void> call = inFlight.remove(id);
+                        if(call == null)
+                            continue;   // 연결이 닫히면서 이미 실패로 완료됨
+                        if(message == null)
+                            call.complete(null);
+                        else
+                            call.completeExceptionally(new IllegalStateException("원격 호출 실패 -> " + message));
+                    }
+                }
+            } catch (IOException e) {
+                fail(new UncheckedIOException(e));
+            }
+        }
+
+        // 먼저 실패를 기록해야 이후의 submit 이 스스로 정리함
+        private void fail(RuntimeException cause) {
+            if(failure == null)
+                failure = cause;
+            close();
+            failPending();
+        }
+
+        private void failPending() {
+            List<CompletableFuture<Void>> pending = new ArrayList<>();
+            outbound.drainTo(pending);
+            for(CompletableFuture<Void> call : pending)
+                call.completeExceptionally(failure);
+            for(Long id : inFlight.keySet()) {
+                CompletableFuture<Void> call = inFlight.remove(id);
+                if(call != null)
+                    call.completeExceptionally(failure);
+            }
+        }
+
+        void close() {
+            if(failure == null)
+                failure = new IllegalStateException("연결이 닫힘");
+            try {
+                channel.close();   // 블로킹 중인 read / write 를 깨움
+            } catch (IOException ignored) {
+                // 이미 닫히는 중
+            }
+            writer.interrupt();
+            failPending();
+        }
+    }
+}
+
+/* 원격 프록시의 Skeleton 대역 (같은 머신의 loopback 서버)
+ *  1. 연결마다 쓰레드 하나가 요청 프레임을 읽고 프레임 안의 호출을 순서대로 target 에 위임한 뒤 응답 프레임 하나로 돌려줌
+ *  2. latency : 응답을 이만큼 늦게 보내서 네트워크 왕복 시간을 흉내냄
+ *      2-1 응답은 scheduler 가 보내고 읽기는 계속하므로 파이프라이닝된 프레임들은 왕복 시간을 겹쳐서 기다림 (실제 네트워크처럼)
+ *  3. target 이 던진 RuntimeException 은 그 호출만 실패로 응답 (연결은 유지)
+ *  4. 응답이 MAX_FRAME_BYTES 를 넘을 수 있으면(실패 메세지가 긴 경우) 프레임을 나눠 보냄 -> 클라이언트는 id 로 찾으므로 프레임 경계와 상관 없음
+ */
+final class RemoteSkeleton implements AutoCloseable {
+
+    private final ISubject target;
+    private final long latencyNanos;
+    private final ServerSocketChannel server;
+    private final ScheduledExecutorService replies;
+    private final List<SocketChannel> clients = new ArrayList<>();
+
+    private RemoteSkeleton(ISubject target, Duration latency, ServerSocketChannel server) {
+        this.target = target;
+        this.latencyNanos = latency.toNanos();
+        this.server = server;
+        this.replies = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "remote-skeleton-reply");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        Thread acceptor = new Thread(this::accept, "remote-skeleton-accept");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    static RemoteSkeleton open(ISubject target, Duration latency) throws IOException {
+        if(latency.isNegative())
+            throw new IllegalArgumentException("latency 는 0 이상 -> " + latency);
+
+        ServerSocketChannel server = ServerSocketChannel.open();
+        server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        return new RemoteSkeleton(target, latency, server);
+    }
+
+    SocketAddress address() {
+        try {
+            return server.getLocalAddress();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void close() {
+        try {
+            server.close();
+            synchronized(clients) {
+                for(SocketChannel client : clients)
+                    client.close();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            replies.shutdownNow();
+        }
+    }
+
+    private void accept() {
+        try {
+            while(true) {
+                SocketChannel client = server.accept();
+                client.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                synchronized(clients) {
+                    clients.add(client);
+                }
+
+                Thread handler = new Thread(() -> serve(client), "remote-skeleton-" + client.getRemoteAddress());
+                handler.setDaemon(true);
+                handler.start();
+            }
+        } catch (IOException ignored) {
+            // 서버가 닫힘
+        }
+    }
+
+    private void serve(SocketChannel client) {
+        try(client) {
+            while(true) {
+                ByteBuffer payload = RemoteWire.readFrame(client);
+                ByteBuffer reply = ByteBuffer.wrap(execute(payload));
+                if(latencyNanos == 0)
+                    writeReply(client, reply);
+                else
+                    replies.schedule(() -> writeReply(client, reply), latencyNanos, TimeUnit.NANOSECONDS);
+            }
+        } catch (IOException ignored) {
+            // 클라이언트가 연결을 닫음
+        } finally {
+            synchronized(clients) {
+                clients.remove(client);
+            }
+        }
+    }
+
+    // 응답 프레임들을 이어 붙인 바이트 (프레임 하나의 본문이 MAX_FRAME_BYTES 를 넘지 않도록 나눔)
+    private byte[] execute(ByteBuffer payload) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(Integer.BYTES + payload.remaining());
+        DataOutputStream out = new DataOutputStream(bytes);
+        int frameStart = 0;
+        out.writeInt(0);   // 길이는 프레임을 닫을 때 채움
+        List<int[]> frames = new ArrayList<>();
+        while(payload.hasRemaining()) {
+            if(bytes.size() - frameStart - Integer.BYTES + RemoteWire.MAX_REPLY_BYTES > RemoteWire.MAX_FRAME_BYTES) {
+                frames.add(new int[] {frameStart, bytes.size()});
+                frameStart = bytes.size();
+                out.writeInt(0);
+            }
+
+            long id = payload.getLong();
+            byte op = payload.get();
+            out.writeLong(id);
+            try {
+                if(op != RemoteWire.ACTION)
+                    throw new IllegalArgumentException("알 수 없는 op -> " + op);
+                target.action();
+                out.writeByte(RemoteWire.OK);
+            } catch (RuntimeException e) {
+                out.writeByte(RemoteWire.ERROR);
+                RemoteWire.putString(out, String.valueOf(e.getMessage()));
+            }
+        }
+
+        frames.add(new int[] {frameStart, bytes.size()});
+
+        byte[] reply = bytes.toByteArray();
+        ByteBuffer lengths = ByteBuffer.wrap(reply);
+        for(int[] frame : frames)
+            lengths.putInt(frame[0], frame[1] - frame[0] - Integer.BYTES);
+        return reply;
+    }
+
+    // 응답은 handler 쓰레드 또는 scheduler 쓰레드 한쪽에서만 씀 (latency 에 따라 고정)
+    private static void writeReply(SocketChannel client, ByteBuffer reply) {
+        try {
+            while(reply.hasRemaining())
+                client.write(reply);
+        } catch (IOException ignored) {
+            // 클라이언트가 연결을 닫음
+        }
+    }
+}
+
+// 원격 프록시 프레임 형식 (RemoteProxy 와 RemoteSkeleton 이 공유)
+final class RemoteWire {
+    static final byte ACTION = 1;
+    static final byte OK = 0;
+    static final byte ERROR = 1;
+    static final int REQUEST_BYTES = Long.BYTES + 1;
+    static final int MAX_REPLY_BYTES = Long.BYTES + 1 + Short.BYTES + Short.MAX_VALUE;   // 응답 하나의 최대 크기 (메세지 포함)
+
+    static final int MAX_FRAME_BYTES = 16 * 1024 * 1024;
+    static final int MAX_BATCH = (MAX_FRAME_BYTES - Integer.BYTES) / REQUEST_BYTES;   // 요청 프레임 하나에 담을 수 있는 최대 호출 수
+
+    private RemoteWire() {}
+
+    // [int 길이][본문] 을 모두 읽어 본문만 반환
+    static ByteBuffer readFrame(SocketChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(Integer.BYTES);
+        readFully(channel, header);
+        int length = header.getInt(0);
+        if(length < 0 || length > MAX_FRAME_BYTES)
+            throw new IOException("잘못된 프레임 길이 -> " + length);
+
+        ByteBuffer payload = ByteBuffer.allocate(length);
+        readFully(channel, payload);
+        return payload.flip();
+    }
+
+    static void putString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        int length = Math.min(bytes.length, Short.MAX_VALUE);
+        out.writeShort(length);
+        out.write(bytes, 0, length);
+    }
+
+    static String getString(ByteBuffer payload) {
+        byte[] bytes = new byte[payload.getShort()];
+        payload.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void readFully(SocketChannel channel, ByteBuffer buffer) throws IOException {
+        while(buffer.hasRemaining()) {
+            if(channel.read(buffer) < 0)
+                throw new EOFException("연결이 닫힘");
+        }
+    }
+}